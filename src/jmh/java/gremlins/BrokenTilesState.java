@@ -0,0 +1,61 @@
+package gremlins;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The benchmark state for the destruction of bricks. Synthetic bricks are added to the map's empty cells, and are
+ * restored and broken again before every iteration
+ * Only the map is built, as the destruction of bricks does not depend on enemies or projectiles
+ * Benchmarks using it run as single shots of DESTROYTICKS calls, so every iteration times the whole destruction
+ */
+@State(Scope.Thread)
+public class BrokenTilesState extends MapState {
+    // A broken brick shows each of its four destroyed sprites for DESTORYFRAMES ticks and is removed on the tick after
+    public static final int DESTROYTICKS = App.DESTORYFRAMES * 4 + 1;
+
+    // The number of bricks broken (capped at the number of empty cells on small maps)
+    @Param({"0", "500", "5000"})
+    public int brickCount;
+
+    private int[] cells;
+    private Tile[] bricks;
+
+    /**
+     * Restores the synthetic bricks removed by the last iteration and breaks them again
+     */
+    @Setup(Level.Iteration)
+    public void breakBricks() {
+        TileGrid tileMap = level.getMap();
+        for (int i = 0; i < cells.length; i++) {
+            int row = cells[i] / tileMap.getCols();
+            int col = cells[i] % tileMap.getCols();
+            bricks[i].restore();
+            tileMap.setTile(row, col, bricks[i]);
+            tileMap.destroyTile(row, col);
+        }
+    }
+
+    /**
+     * Adds the synthetic bricks to random empty cells of the map
+     */
+    @Override
+    protected void populate() {
+        TileGrid tileMap = level.getMap();
+        int count = Math.min(brickCount, tileMap.getEmptyCount());
+        cells = new int[count];
+        bricks = new Tile[count];
+        for (int i = 0; i < count; i++) {
+            // Placing a brick removes its cell from the empty cells, so no cell is picked twice
+            int cell = tileMap.getEmptyCell(rand.nextInt(tileMap.getEmptyCount()));
+            int row = cell / tileMap.getCols();
+            int col = cell % tileMap.getCols();
+            cells[i] = cell;
+            bricks[i] = new Tile(GameObject.gridToPixel(col), GameObject.gridToPixel(row), engine.getSprites().brickwallSprites, TileType.BRICKWALL);
+            tileMap.setTile(row, col, bricks[i]);
+        }
+    }
+}
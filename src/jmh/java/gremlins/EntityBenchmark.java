@@ -0,0 +1,66 @@
+package gremlins;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the per-tick updates of individual entities. Each operation updates every entity of the benchmarked kind once
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+    /**
+     * Updates every enemy once
+     * @param state The level with its synthetic entities
+     * @param blackhole Consumes the results
+     */
+    @Benchmark
+    public void enemyTick(GameState state, Blackhole blackhole) {
+        for (Enemy enemy : state.level.getEnemies()) {
+            blackhole.consume(enemy.tick(state.level));
+        }
+    }
+
+    /**
+     * Makes every fury gremlin choose its next move toward the player
+     * @param state The level with its synthetic entities
+     * @param blackhole Consumes the results
+     */
+    @Benchmark
+    public void furyHandleMovement(GameState state, Blackhole blackhole) {
+        for (FuryGremlin fury : state.furies) {
+            blackhole.consume(fury.handleMovement(state.level));
+        }
+    }
+
+    /**
+     * Updates every projectile once without removing inactive ones
+     * Runs as single shots of several ticks, with the projectiles restored before every shot
+     * @param state The level with its synthetic entities
+     * @param blackhole Consumes the results
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 100, batchSize = RefilledGameState.BATCHTICKS)
+    @Measurement(iterations = 500, batchSize = RefilledGameState.BATCHTICKS)
+    public void projectileTick(RefilledGameState state, Blackhole blackhole) {
+        TileGrid tileMap = state.level.getMap();
+        ProjectileStore projectiles = state.level.getProjectiles();
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            blackhole.consume(projectiles.tick(slot, tileMap));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package gremlins;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import processing.core.PImage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The benchmark state. Adds synthetic enemies and projectiles on top of the map
+ * With the map size and both counts at zero, the state is exactly the shipped level
+ */
+@State(Scope.Thread)
+public class GameState extends MapState {
+    @Param({"0", "500", "5000"})
+    public int enemyCount;
+
+    @Param({"0", "500", "5000"})
+    public int projectileCount;
+
+    public List<FuryGremlin> furies;
+
+    // The projectiles the level is refilled with before each iteration of a benchmark that destroys projectiles
+    private int[][] projectileSpawns;
+    private PImage[] projectileSprites = new PImage[1];
+    private static final ProjectileType[] types = ProjectileType.values();
+    private static final Direction[] directions = Direction.values();
+
+    /**
+     * Places the synthetic entities
+     */
+    @Override
+    protected void populate() {
+        Map<String, Weapon> weaponList = engine.getWeaponsList();
+        TileGrid tileMap = level.getMap();
+        Sprites sprites = engine.getSprites();
+
+        // Adds an even mix of the three enemy types on random empty cells
+        for (int i = 0; i < enemyCount; i++) {
+            int[] cell = randomEmptyCell(tileMap);
+            int x = GameObject.gridToPixel(cell[1]);
+            int y = GameObject.gridToPixel(cell[0]);
+            switch (i % 3) {
+                case 0:
+                    level.getEnemies().add(new GreenGremlin(x, y, sprites.gremlinSprites, weaponList.get("Slimeball Launcher").copy(), rand, tileMap));
+                    break;
+                case 1:
+                    level.getEnemies().add(new GhostGremlin(x, y, sprites.ghostGremlinSprites, weaponList.get("Ghostball Launcher").copy(), rand, tileMap));
+                    break;
+                default:
+                    level.getEnemies().add(new FuryGremlin(x, y, sprites.furyGremlinSprites, weaponList.get("Furyball Launcher").copy(), rand, tileMap));
+                    break;
+            }
+        }
+
+        furies = new ArrayList<FuryGremlin>();
+        for (Enemy enemy : level.getEnemies()) {
+            if (enemy instanceof FuryGremlin) {
+                furies.add((FuryGremlin)enemy);
+            }
+        }
+
+        // Picks a random type, cell and direction for every synthetic projectile
+        projectileSpawns = new int[projectileCount][];
+        for (int i = 0; i < projectileCount; i++) {
+            int[] cell = randomEmptyCell(tileMap);
+            int type = rand.nextInt(types.length);
+            int direction = rand.nextInt(directions.length);
+            projectileSpawns[i] = new int[] {cell[0], cell[1], type, direction};
+        }
+        refillProjectiles();
+    }
+
+    /**
+     * Replaces the level's projectiles with freshly fired copies of the synthetic projectiles
+     */
+    public void refillProjectiles() {
+        ProjectileStore projectiles = level.getProjectiles();
+        projectiles.clear();
+        for (int[] spawn : projectileSpawns) {
+            projectiles.add(GameObject.gridToPixel(spawn[1]), GameObject.gridToPixel(spawn[0]), projectileSprites, types[spawn[2]], directions[spawn[3]]);
+        }
+    }
+}
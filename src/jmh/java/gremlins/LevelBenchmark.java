@@ -0,0 +1,63 @@
+package gremlins;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the per-tick phases of Level.tick
+ * Phases that destroy projectiles or tiles run as single shots of several ticks, restoring what they destroyed before
+ * every shot, so the level never runs out of work part way through a measurement
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark {
+
+    /**
+     * Checks every non-tile collision in the level
+     * @param state The level with its synthetic entities
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 100, batchSize = RefilledGameState.BATCHTICKS)
+    @Measurement(iterations = 500, batchSize = RefilledGameState.BATCHTICKS)
+    public void manageCollisions(RefilledGameState state) {
+        state.level.manageCollisions();
+    }
+
+    /**
+     * Moves every projectile and removes the inactive ones
+     * @param state The level with its synthetic entities
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 100, batchSize = RefilledGameState.BATCHTICKS)
+    @Measurement(iterations = 500, batchSize = RefilledGameState.BATCHTICKS)
+    public void progressProjectiles(RefilledGameState state) {
+        state.level.progressProjectiles();
+    }
+
+    /**
+     * Advances the destruction sequence of every broken brick, from being broken until it is removed
+     * @param state The level with its synthetic entities and bricks
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 100, batchSize = BrokenTilesState.DESTROYTICKS)
+    @Measurement(iterations = 500, batchSize = BrokenTilesState.DESTROYTICKS)
+    public void progressBrokenTiles(BrokenTilesState state) {
+        state.level.progressBrokenTiles();
+    }
+}
@@ -0,0 +1,99 @@
+package gremlins;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The benchmark state of a map alone. Loads the shipped level1.txt, or a larger generated arena, headlessly
+ * States that add synthetic objects extend it, so benchmarks that ignore those objects are not repeated for every count
+ */
+@State(Scope.Thread)
+public class MapState {
+    public static final String LEVELPATH = "level1.txt";
+
+    // The number of rows and columns of a generated arena (0 uses the shipped level)
+    @Param({"0", "200"})
+    public int mapSize;
+
+    @Param({"42"})
+    public long seed;
+
+    public Engine engine;
+    public Level level;
+    public Random rand;
+
+    /**
+     * Builds the level, then adds any synthetic objects
+     * @throws IOException If the generated arena could not be written
+     */
+    @Setup
+    public void setup() throws IOException {
+        rand = new Random(seed);
+        if (mapSize > 0) {
+            // The arena is read back like any other level file, then deleted once the level is built
+            Path arenaPath = Files.createTempFile("arena", ".txt");
+            Files.write(arenaPath, ArenaGenerator.generate(mapSize, mapSize, 0, rand));
+            engine = new Engine(config(arenaPath.toString()), Sprites.headless(), rand);
+            Files.delete(arenaPath);
+        }
+        else {
+            engine = new Engine(config(LEVELPATH), Sprites.headless(), rand);
+        }
+        level = engine.getLevel();
+
+        // The player is moved off the map so that enemy contact never resets the level mid-benchmark
+        level.getPlayer().setCoords(-10 * App.SPRITESIZE, -10 * App.SPRITESIZE);
+
+        populate();
+    }
+
+    /**
+     * Adds the synthetic objects of the state to the level. A map alone has none
+     */
+    protected void populate() {}
+
+    /**
+     * Finds a random cell of the map that has no tile
+     * @param tileMap The tile map of the level
+     * @return The row and column of the cell
+     */
+    protected int[] randomEmptyCell(TileGrid tileMap) {
+        while (true) {
+            int row = rand.nextInt(tileMap.getRows());
+            int col = rand.nextInt(tileMap.getCols());
+            if (tileMap.isEmpty(row, col)) {
+                return new int[] {row, col};
+            }
+        }
+    }
+
+    /**
+     * Creates a game configuration with the benchmarked level as its only level
+     * @param layout The path of the level file
+     * @return The game configuration
+     */
+    private static JSONObject config(String layout) {
+        JSONObject levelJSON = new JSONObject();
+        levelJSON.setString("layout", layout);
+        levelJSON.setDouble("wizard_cooldown", 0.3333);
+        levelJSON.setDouble("enemy_cooldown", 3.0);
+
+        JSONArray levels = new JSONArray();
+        levels.append(levelJSON);
+
+        JSONObject config = new JSONObject();
+        config.setJSONArray("levels", levels);
+        config.setInt("lives", 3);
+        return config;
+    }
+}
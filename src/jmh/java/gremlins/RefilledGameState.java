@@ -0,0 +1,25 @@
+package gremlins;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The benchmark state for phases that destroy projectiles. The synthetic projectiles are restored before every iteration
+ * Benchmarks using it run as single shots of BATCHTICKS calls, so every iteration times the same ticks from a full level
+ * and the restoring is never timed
+ */
+@State(Scope.Thread)
+public class RefilledGameState extends GameState {
+    // The number of ticks run in each iteration after the projectiles are restored
+    public static final int BATCHTICKS = 20;
+
+    /**
+     * Restores the synthetic projectiles
+     */
+    @Setup(Level.Iteration)
+    public void refill() {
+        refillProjectiles();
+    }
+}
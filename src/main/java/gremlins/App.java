@@ -1,16 +1,14 @@
 package gremlins;
 
 import processing.core.PApplet;
-import processing.core.PImage;
 import processing.core.PFont;
-import processing.data.JSONObject;
-import processing.data.JSONArray;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Random;
-
-import java.io.*;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
  * The main application for the game
@@ -21,6 +19,8 @@ public class App extends PApplet {
     public static final int WIDTH = 720;
     public static final int HEIGHT = 720;
     public static final int BOTTOMBAR = 60;
+
+    // The number of rows and columns of tiles visible in the window (levels may be larger)
     public static final int ROWS = 33;
     public static final int COLS = 36;
     
@@ -28,58 +28,53 @@ public class App extends PApplet {
 
     public static final int ENDFONTSIZE = 64;
 
+    // The number of game ticks per second, which every speed and timer is measured in (the window may draw faster or slower)
     public static final int FPS = 60;
+    public static final int MAXTICKSPERFRAME = 5;
     public static final int DESTORYFRAMES = 4; 
 
     public static final int PLAYERSPEED = 2;
     public static final int TELEPORTRANGE = 10;
+    public static final int PURSUITRANGE = 128;
 
     public static final String configPath = "config.json";
 
     public static final Character[] weaponChars = {' ', 'a', 's'};
-    
-    // Sprites
-    public PImage[] brickwallSprites;
-    public PImage[] stonewallSprites;
-    public PImage[] doorSprites;
 
-    public PImage[] gremlinSprites;
-    public PImage[] ghostGremlinSprites;
-    public PImage[] furyGremlinSprites;
+    // When set to a directory, every game is recorded there so it can be replayed
+    public static final String RECORDPROPERTY = "gremlins.record";
 
-    public PImage[] wizardSprites;
+    // When set to a directory, the game's events are logged there
+    public static final String EVENTLOGPROPERTY = "gremlins.eventlog";
 
-    public PImage[] fireballSprites;
-    public PImage[] slimeballSprites;
-    public PImage[] thunderballSprites;
-    public PImage[] ghostballSprites;
-    public PImage[] hydroballSprites;
-    public PImage[] furyballSprites;
+    // Overrides the number of frames drawn per second, for example to match a 144 Hz display
+    public static final String FPSPROPERTY = "gremlins.fps";
 
-    public PImage[] thunderballPowerupSprites;
-    public PImage[] hydroballPowerupSprites;
+    // When set to true, the phases of every frame are timed and the timings are printed by pressing the profile key
+    public static final String PROFILEPROPERTY = "gremlins.profile";
+    public static final char PROFILEKEY = 'p';
+    
+    // Sprites
+    private Sprites sprites;
     
     // Other
-    private Random rand;
-    private int levelNumber = 0;
-    private int levelCount;
-    private JSONArray levels;
-    private Level level;
-    private JSONObject levelJSON;
-    private Player player;
+    private Engine engine;
+    private Input input = new Input();
     private InfoBar infoBar;
-    private int maxLives;
+    private MapRenderer mapRenderer;
+    private Camera camera;
+    private FixedTimestep timestep;
+    private GameMonitor monitor;
+    private PFont endFont;
 
-    private boolean rightPressed = false;
-    private boolean leftPressed = false;
-    private boolean upPressed = false;
-    private boolean downPressed = false;
-    private Character charPressed;
+    // Loading
+    private AssetLoader assetLoader;
+    private long firstInteractiveFrameTime = -1;
 
-    private Map<String, Weapon> weaponList;
+    // Recording
+    private InputRecorder recorder;
+    private EventLog eventLog;
 
-    private boolean isGameActive = true;
-    private boolean isGameWon = false;
     private final int maxFinishCooldown = 1;
     private int finishCooldown;
 
@@ -96,85 +91,135 @@ public class App extends PApplet {
     }
 
     /**
-     * Sets up the application's initial state on launch. Creates the player, loads sprites, finds the levels, etc
+     * Sets up the application's initial state on launch
+     * Sprites and the configuration are loaded in the background while a loading screen is displayed
      */
     public void setup() {
-        frameRate(FPS);
-
-        // Loading sprites
-        stonewallSprites = new PImage[] {loadImage(this.getClass().getResource("stonewall.png").getPath().replace("%20", " "))};
+        // The game can be watched and controlled through JMX while it runs
+        monitor = new GameMonitor(Integer.getInteger(FPSPROPERTY, FPS));
+        monitor.register();
+        frameRate(monitor.getTargetFramesPerSecond());
+        assetLoader = new AssetLoader(configPath);
+    }
 
-        PImage brickwall = loadImage(this.getClass().getResource("brickwall.png").getPath().replace("%20", " "));
-        PImage brickwallDestroyed0 = loadImage(this.getClass().getResource("brickwall_destroyed0.png").getPath().replace("%20", " "));
-        PImage brickwallDestroyed1 = loadImage(this.getClass().getResource("brickwall_destroyed1.png").getPath().replace("%20", " "));
-        PImage brickwallDestroyed2 = loadImage(this.getClass().getResource("brickwall_destroyed2.png").getPath().replace("%20", " "));
-        PImage brickwallDestroyed3 = loadImage(this.getClass().getResource("brickwall_destroyed3.png").getPath().replace("%20", " "));
-        brickwallSprites = new PImage[] {brickwall, brickwallDestroyed0, brickwallDestroyed1, brickwallDestroyed2, brickwallDestroyed3};
+    /**
+     * Starts the engine once the assets are loaded, waiting for them if necessary
+     */
+    public void awaitLoading() {
+        if (engine != null) {
+            return;
+        }
 
-        doorSprites = new PImage[] {loadImage(this.getClass().getResource("door.png").getPath().replace("%20", " "))};
+        // Reading the sprites and JSON file and starting the game at the first level
+        sprites = assetLoader.getSprites();
+        long seed = System.nanoTime();
+        engine = new Engine(assetLoader.getConfig(), sprites, new Random(seed));
+        engine.setPreloading(true);
+        startRecording(seed);
+        startEventLog();
 
-        gremlinSprites = new PImage[] {loadImage(this.getClass().getResource("gremlin.png").getPath().replace("%20", " "))};
-        ghostGremlinSprites = new PImage[] {loadImage(this.getClass().getResource("ghost.png").getPath().replace("%20", " "))};
-        furyGremlinSprites = new PImage[] {loadImage(this.getClass().getResource("fury.png").getPath().replace("%20", " "))};
+        // Other setup
+        infoBar = new InfoBar(this, sprites.wizardSprites[0]);
+        mapRenderer = new MapRenderer(this);
+        camera = new Camera(WIDTH, InfoBar.yPos);
+        timestep = new FixedTimestep(FPS, MAXTICKSPERFRAME, System.nanoTime());
+        finishCooldown = maxFinishCooldown * FPS;
+    }
 
-        PImage wizardRight = loadImage(this.getClass().getResource("wizard1.png").getPath().replace("%20", " "));
-        PImage wizardUp = loadImage(this.getClass().getResource("wizard2.png").getPath().replace("%20", " "));
-        PImage wizardLeft = loadImage(this.getClass().getResource("wizard0.png").getPath().replace("%20", " "));
-        PImage wizardDown = loadImage(this.getClass().getResource("wizard3.png").getPath().replace("%20", " "));
-        wizardSprites = new PImage[] {wizardRight, wizardUp, wizardLeft, wizardDown};
+    /**
+     * Starts recording the game if a recording directory was given
+     * @param seed The seed of the game's random number generator
+     */
+    private void startRecording(long seed) {
+        String recordDir = System.getProperty(RECORDPROPERTY);
+        if (recordDir == null) {
+            return;
+        }
 
-        fireballSprites = new PImage[] {loadImage(this.getClass().getResource("fireball.png").getPath().replace("%20", " "))};
-        slimeballSprites = new PImage[] {loadImage(this.getClass().getResource("slime.png").getPath().replace("%20", " "))};
-        thunderballSprites = new PImage[] {loadImage(this.getClass().getResource("thunderball.png").getPath().replace("%20", " "))};
-        hydroballSprites = new PImage[] {loadImage(this.getClass().getResource("hydroball.png").getPath().replace("%20", " "))};
-        ghostballSprites = new PImage[] {loadImage(this.getClass().getResource("ghostball.png").getPath().replace("%20", " "))};
-        furyballSprites = new PImage[] {loadImage(this.getClass().getResource("furyball.png").getPath().replace("%20", " "))};
+        try {
+            Path dir = Files.createDirectories(Paths.get(recordDir));
+            recorder = InputRecorder.open(dir.resolve("gremlins-" + seed + ".rec"), seed);
+        }
+        catch (IOException e) {
+            stopRecording(e);
+        }
+    }
 
-        thunderballPowerupSprites = new PImage[] {loadImage(this.getClass().getResource("thunderball_powerup.png").getPath().replace("%20", " ")), null};
-        hydroballPowerupSprites = new PImage[] {loadImage(this.getClass().getResource("hydroball_powerup.png").getPath().replace("%20", " ")), null};
+    /**
+     * Stops recording after the recording could not be written. The game carries on without recording
+     * @param e The error that stopped the recording
+     */
+    private void stopRecording(IOException e) {
+        System.err.println("Recording stopped: " + e.getMessage());
+        recorder = null;
+    }
 
-        rand = new Random();
+    /**
+     * Starts logging the game's events if a log directory was given
+     */
+    private void startEventLog() {
+        String logDir = System.getProperty(EVENTLOGPROPERTY);
+        if (logDir == null) {
+            return;
+        }
 
-        // Reading JSON file
-        JSONObject conf = loadJSONObject(new File(configPath));
-        maxLives = conf.getInt("lives");
-        levels = conf.getJSONArray("levels");
-        levelCount = levels.size();
+        try {
+            eventLog = EventLog.open(Paths.get(logDir));
+            engine.setEventLog(eventLog);
+        }
+        catch (IOException e) {
+            System.err.println("Event log unavailable: " + e.getMessage());
+        }
+    }
 
-        // Other setup
-        infoBar = new InfoBar(this, wizardRight);
-        finishCooldown = maxFinishCooldown * FPS;
+    /**
+     * Displays the loading progress while the assets load
+     */
+    private void drawLoadingScreen() {
+        fill(191, 153, 114);
+        rect(-1, -1, WIDTH + 2, HEIGHT + 2);
 
-        // Starts the game by progressing the level
-        progressLevel();
-    }   
+        // Progress bar in the middle of the screen
+        fill(255);
+        rect(WIDTH / 4, HEIGHT / 2 - SPRITESIZE / 2, WIDTH / 2 * assetLoader.getProgress(), SPRITESIZE);
+    }
 
     /**
      * Manages key press events such as movement and weapon firing
      */
     public void keyPressed() {
+        // Key presses are ignored while the game is loading
+        if (engine == null) {
+            return;
+        }
+
+        // Prints the frame timings so far
+        if (key == PROFILEKEY && engine.getProfiler().isEnabled()) {
+            System.out.print(engine.getProfiler().report());
+        }
+
         // If the game is active, key presses affect the player
-        if (isGameActive) {  
+        if (engine.isGameActive()) {  
 
             // Key presses that configure movement
             if (keyCode == RIGHT) {
-                rightPressed = true;
+                input.setRightPressed(true);
             }
             if (keyCode == LEFT) {
-                leftPressed = true;
+                input.setLeftPressed(true);
             }
             if (keyCode == UP) {
-                upPressed = true;
+                input.setUpPressed(true);
             }
             if (keyCode == DOWN) {
-                downPressed = true;
+                input.setDownPressed(true);
             }
 
             // Other key presses are checked for associated weapons
             for (int i = 0; i < weaponChars.length; i++) {
                 if (key == weaponChars[i]) {
                     // Only one weapon can be fired at a time
-                    charPressed = weaponChars[i];
+                    input.setCharPressed(weaponChars[i]);
                     break;
                 }
             }
@@ -192,23 +237,23 @@ public class App extends PApplet {
     public void keyReleased(){
         // Key presses that configure movement
         if (keyCode == RIGHT) {
-            rightPressed = false;
+            input.setRightPressed(false);
         }
         if (keyCode == LEFT) {
-            leftPressed = false;
+            input.setLeftPressed(false);
         }
         if (keyCode == UP) {
-            upPressed = false;
+            input.setUpPressed(false);
         }
         if (keyCode == DOWN) {
-            downPressed = false;
+            input.setDownPressed(false);
         }
             
         // Other key presses are checked for associated weapons
         for (int i = 0; i < weaponChars.length; i++) {
             // Weapon only stops firing if the key released corresponds to the weapon
-            if (key == weaponChars[i] && (Character)key == charPressed) {
-                charPressed = null;
+            if (key == weaponChars[i] && (Character)key == input.getCharPressed()) {
+                input.setCharPressed(null);
                 break;
             }
         }
@@ -218,60 +263,111 @@ public class App extends PApplet {
      * Updates the game every frame
      */
     public void draw() {
-        // If the game is active, the main game loop runs
-        if (isGameActive) {   
+        // The loading screen is shown until every asset is ready
+        if (engine == null) {
+            if (!assetLoader.isDone()) {
+                drawLoadingScreen();
+                return;
+            }
+            awaitLoading();
+        }
+
+        FrameProfiler profiler = engine.getProfiler();
+        long frameStart = profiler.start();
+
+        // Requests from the game monitor are carried out on the game's thread
+        int targetFramesPerSecond = monitor.takeTargetFramesPerSecond();
+        if (targetFramesPerSecond > 0) {
+            frameRate(targetFramesPerSecond);
+        }
+
+        // The game advances by as many ticks as the time since the last frame covers, so it keeps its pace at any frame rate
+        long frameTime = System.nanoTime();
+        int ticks = monitor.takeTicks(timestep.advance(frameTime));
+
+        // If the game is active, the engine advances and the game is rendered
+        if (engine.isGameActive()) {   
+            for (int tick = 0; tick < ticks && engine.isGameActive(); tick++) {
+                if (recorder != null) {
+                    try {
+                        recorder.record(input);
+                    }
+                    catch (IOException e) {
+                        stopRecording(e);
+                    }
+                }
+                engine.step(input);
+            }
+
+            Level level = engine.getLevel();
+            Player player = engine.getPlayer();
+
+            // Moving objects are drawn between their positions before and after the last tick
+            // A paused game is drawn exactly as it is
+            float alpha = monitor.isPaused() ? 1 : timestep.getAlpha();
+
             // Creating the beige background 
             fill(191, 153, 114);
             rect(-1, -1, WIDTH + 2, HEIGHT + 2);
 
-            // Adding level elements
-            level.tick();
+            // Adding level elements and the player, scrolled so the player stays in view
+            camera.follow(player.getDrawX(alpha), player.getDrawY(alpha), level.getMap());
+            clip(0, 0, camera.getViewWidth(), camera.getViewHeight());
+            pushMatrix();
+            translate(-camera.getX(), -camera.getY());
+            long time = profiler.start();
+            mapRenderer.draw(level.getMap(), camera);
+            time = profiler.lap(FramePhase.MAP, time);
+            level.draw(this, camera, alpha);
+            player.draw(this, alpha);
+            time = profiler.lap(FramePhase.LEVEL, time);
+            popMatrix();
+            noClip();
 
             // Adding the info bar displays
             fill(255);
             infoBar.displayLives(player.getLives());
-            infoBar.displayLevel(levelNumber,levelCount);
+            infoBar.displayLevel(engine.getLevelNumber(), engine.getLevelCount());
             infoBar.displayPowerups(player.getPowerups());
             infoBar.displayMana(player.getWeapons());
-            
-            // Handling player movement and weapon firing
-            player.handleMovement(rightPressed, leftPressed, upPressed, downPressed, level);
-            player.tick();
-            player.useWeapon(charPressed, level.getProjectiles());
-            
-            // Handling player powerups
-            for (Powerup powerup : player.getPowerups()) {
-                if (!powerup.reduceTimers()) {
-                    powerup.disablePowerup(level);
-                }
+            infoBar.draw();
+            profiler.lap(FramePhase.INFOBAR, time);
+            profiler.lap(FramePhase.FRAME, frameStart);
+
+            // Publishes how long it took from launch until the game could be played
+            if (firstInteractiveFrameTime < 0) {
+                firstInteractiveFrameTime = System.nanoTime() - assetLoader.getStartTime();
+                monitor.recordFirstInteractiveFrame(firstInteractiveFrameTime);
+                engine.logEvent(GameEventType.READY, 0, 0, (int)(firstInteractiveFrameTime / 1000000), null);
             }
-
-            // Drawing the player
-            player.draw(this);
         }
 
         // Otherwise, the end screen loop is run
         else {
             // Reduces the restart game cooldown timer
             if (finishCooldown > 0) {
-                finishCooldown -= 1;
+                finishCooldown -= ticks;
             }
 
-            // Adds end of game text
-            PFont font = createFont("Arial", ENDFONTSIZE);
+            // Adds end of game text (the font is only created once)
+            if (endFont == null) {
+                endFont = createFont("Arial", ENDFONTSIZE);
+            }
             textAlign(CENTER, CENTER);
-            textFont(font, App.ENDFONTSIZE);
+            textFont(endFont, App.ENDFONTSIZE);
             fill(191, 153, 114);
             rect(-1, -1, WIDTH + 2, HEIGHT + 2);
             fill(255);
 
-            if (isGameWon) {
+            if (engine.isGameWon()) {
                 text("YOU WIN!", WIDTH / 2, HEIGHT / 2);
             }
             else {
                 text("GAME OVER!", WIDTH / 2, HEIGHT / 2);
             }
         }
+
+        monitor.update(engine, frameTime);
     }
 
     /**
@@ -279,8 +375,7 @@ public class App extends PApplet {
      * @param isGameWon Determines if the win or lose screen should be displayed
      */
     public void endGame(boolean isGameWon) {
-        isGameActive = false;
-        this.isGameWon = isGameWon;
+        engine.endGame(isGameWon);
     }
 
     /**
@@ -288,65 +383,53 @@ public class App extends PApplet {
      * @return true if there is a next level (otherwise returns false)
      */
     public boolean progressLevel() {
-        // Progresses a level and checks that the max level count has not been reached
-        levelNumber++;
-        if (levelNumber <= levelCount) {
-            // Gets the next level's data
-            levelJSON = levels.getJSONObject(levelNumber - 1);
-            
-            double wizardCooldown = levelJSON.getDouble("wizard_cooldown");
-            double enemyCooldown = levelJSON.getDouble("enemy_cooldown");
-
-            // Configures the weapons for the level
-            weaponList = new HashMap<String, Weapon>();
-            weaponList.put("Fireball Launcher", new Weapon(ProjectileType.FIREBALL, fireballSprites, wizardCooldown));
-            weaponList.put("Slimeball Launcher", new Weapon(ProjectileType.SLIMEBALL, slimeballSprites, enemyCooldown));
-            weaponList.put("Thunderball Launcher", new Weapon(ProjectileType.THUNDERBALL, thunderballSprites, wizardCooldown));
-            weaponList.put("Ghostball Launcher", new Weapon(ProjectileType.GHOSTBALL, ghostballSprites, enemyCooldown));
-            weaponList.put("Hydroball Launcher", new Weapon(ProjectileType.HYDROBALL, hydroballSprites, wizardCooldown));
-            weaponList.put("Furyball Launcher", new Weapon(ProjectileType.FURYBALL, furyballSprites, enemyCooldown));
-
-            Map<Character, Weapon> playerWeapons = new HashMap<Character, Weapon>();
-            playerWeapons.put(' ', weaponList.get("Fireball Launcher").copy());
-
-            // Generates a new player for the next level (preserving the lives)
-            int lives = maxLives;
-            if (player != null) {
-                lives = player.getLives();
-            }
-            player = new Player(0, 0, wizardSprites, PLAYERSPEED, lives, playerWeapons);
-            level = new Level(this, player, levelJSON.getString("layout"), weaponList, rand);
-
-            // Checks that the level is valid (otherwise skips it)
-            if (!level.getValidity()) {
-                progressLevel();
-            }
-
-            return true;
-        }
-
-        // If there are no more levels, the game is won
-        else {
-            endGame(true);
-            return false;
-        }
+        return engine.progressLevel();
     }
 
     /**
      * Creates a new game after the game ends
      */
     public void reset() {
-        // Resets game status variables to their default values
-        isGameActive = true;
-        isGameWon = false;
-
+        // Resets the info bar and restart buffer to their default values
         infoBar = infoBar.copy();
         finishCooldown = maxFinishCooldown * FPS;
-        levelNumber = 0;
-        player = null;
 
-        // Progresses to the first level
-        progressLevel();
+        // Restarts the engine from the first level
+        if (recorder != null) {
+            try {
+                recorder.recordReset();
+                recorder.flush();
+            }
+            catch (IOException e) {
+                stopRecording(e);
+            }
+        }
+        engine.reset();
+    }
+
+    /**
+     * Closes the recording when the application exits
+     */
+    @Override
+    public void dispose() {
+        if (monitor != null) {
+            monitor.unregister();
+        }
+        if (eventLog != null) {
+            eventLog.close();
+        }
+        if (engine != null && engine.getProfiler().isEnabled()) {
+            System.out.print(engine.getProfiler().report());
+        }
+        if (recorder != null) {
+            try {
+                recorder.close();
+            }
+            catch (IOException e) {
+                stopRecording(e);
+            }
+        }
+        super.dispose();
     }
 
     /*
@@ -358,37 +441,46 @@ public class App extends PApplet {
 
     // For testing only (not documented)
     public Player getPlayer() {
-        return player;
+        return engine.getPlayer();
     }
     public Level getLevel() {
-        return level;
+        return engine.getLevel();
     }
     public InfoBar getInfoBar() {
         return infoBar;
     }
+    public long getFirstInteractiveFrameTime() {
+        return firstInteractiveFrameTime;
+    }
     public Random getRandom() {
-        return rand;
+        return engine.getRandom();
     }
     public int getLevelNumber() {
-        return levelNumber;
+        return engine.getLevelNumber();
     }
     public int getLevelCount() {
-        return levelCount;
+        return engine.getLevelCount();
     }
     public Map<String, Weapon> getWeaponsList() {
-        return weaponList;
+        return engine.getWeaponsList();
     }
     public boolean isLeftPressed() {
-        return leftPressed;
+        return input.isLeftPressed();
     }
     public boolean isRightPressed() {
-        return rightPressed;
+        return input.isRightPressed();
     }
     public boolean isUpPressed() {
-        return upPressed;
+        return input.isUpPressed();
     }
     public boolean isDownPressed() {
-        return downPressed;
+        return input.isDownPressed();
+    }
+    public Sprites getSprites() {
+        return sprites;
+    }
+    public Engine getEngine() {
+        return engine;
     }
     public void setFinishCooldown(int cooldown) {
         finishCooldown = cooldown;
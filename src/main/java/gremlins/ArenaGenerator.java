@@ -0,0 +1,88 @@
+package gremlins;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates large random level files, for stress testing enemies and collisions on maps bigger than the window
+ * Usage: ArenaGenerator rows cols enemies outputPath [seed]
+ */
+public class ArenaGenerator {
+    // The chance of an inner cell holding a brick or a stonewall
+    private static final double brickChance = 0.2;
+    private static final double stonewallChance = 0.05;
+    private static final double powerupChance = 0.001;
+
+    /**
+     * The constructor for the ArenaGenerator class
+     */
+    private ArenaGenerator() {}
+
+    /**
+     * Generates the text of a level surrounded by stonewalls, with the player in the top left and the exit in the bottom right
+     * @param rows The number of rows in the level
+     * @param cols The number of columns in the level
+     * @param enemies The number of enemies placed in the level
+     * @param rand The random number generator deciding the layout
+     * @return The contents of the level file
+     */
+    public static byte[] generate(int rows, int cols, int enemies, Random rand) {
+        int lineLength = cols + 1;
+        byte[] bytes = new byte[rows * lineLength];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                byte cell = ' ';
+                if (row == 0 || col == 0 || row == rows - 1 || col == cols - 1) {
+                    cell = 'X';
+                }
+                else {
+                    double roll = rand.nextDouble();
+                    if (roll < stonewallChance) {
+                        cell = 'X';
+                    }
+                    else if (roll < stonewallChance + brickChance) {
+                        cell = 'B';
+                    }
+                    else if (roll < stonewallChance + brickChance + powerupChance) {
+                        cell = 'P';
+                    }
+                }
+                bytes[row * lineLength + col] = cell;
+            }
+            bytes[row * lineLength + cols] = '\n';
+        }
+
+        // The player and exit sit in opposite corners
+        bytes[lineLength + 1] = 'W';
+        bytes[(rows - 2) * lineLength + cols - 2] = 'E';
+
+        // Enemies are placed on random inner cells, keeping clear of the player
+        char[] enemyTypes = {'G', 'H', 'F'};
+        for (int i = 0; i < enemies; i++) {
+            int row = 1 + rand.nextInt(rows - 2);
+            int col = 1 + rand.nextInt(cols - 2);
+            if (Math.abs(row - 1) + Math.abs(col - 1) >= App.TELEPORTRANGE && bytes[row * lineLength + col] != 'E') {
+                bytes[row * lineLength + col] = (byte)enemyTypes[i % enemyTypes.length];
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a generated level
+     * @param args The number of rows, columns and enemies, the output path, and optionally the random seed
+     * @throws IOException If the level could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        int enemies = Integer.parseInt(args[2]);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        Files.write(Paths.get(args[3]), generate(rows, cols, enemies, new Random(seed)));
+        System.out.println("Generated a " + rows + " by " + cols + " level with seed " + seed + " at " + args[3]);
+    }
+}
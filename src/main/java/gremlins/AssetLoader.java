@@ -0,0 +1,117 @@
+package gremlins;
+
+import processing.core.PImage;
+import processing.data.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Decodes the game's sprites and reads its configuration in parallel on a pool of worker threads
+ * The application keeps drawing frames while the assets load and polls the loader for its progress
+ */
+public class AssetLoader {
+    private ExecutorService pool;
+    private AtomicInteger completedTasks = new AtomicInteger();
+    private int totalTasks = 0;
+    private long startTime;
+
+    private CompletableFuture<JSONObject> config;
+    private CompletableFuture<Sprites> sprites;
+
+    /**
+     * The constructor for the AssetLoader class. Loading begins immediately
+     * @param configPath The path of the configuration file
+     */
+    public AssetLoader(String configPath) {
+        startTime = System.nanoTime();
+
+        // Worker threads do not keep the application alive once the window closes
+        int threads = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "gremlins-asset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        config = submit(() -> Engine.loadConfig(configPath));
+
+        // The atlas is decoded as a single image, otherwise every image is decoded separately
+        CompletableFuture<Map<String, PImage>> images;
+        if (Sprites.hasAtlas()) {
+            images = submit(Sprites::loadAtlas);
+        }
+        else {
+            Map<String, CompletableFuture<PImage>> files = new HashMap<String, CompletableFuture<PImage>>();
+            for (String fileName : Sprites.SPRITEFILES) {
+                files.put(fileName, submit(() -> Sprites.loadImage(fileName)));
+            }
+            images = CompletableFuture.allOf(files.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+                Map<String, PImage> decoded = new HashMap<String, PImage>();
+                for (Map.Entry<String, CompletableFuture<PImage>> entry : files.entrySet()) {
+                    decoded.put(entry.getKey(), entry.getValue().join());
+                }
+                return decoded;
+            });
+        }
+        sprites = images.thenApply(Sprites::fromImages);
+
+        // The pool is no longer needed once every task has finished
+        CompletableFuture.allOf(config, sprites).whenComplete((ignored, error) -> pool.shutdown());
+    }
+
+    /**
+     * Runs a loading task on the worker pool, counting it towards the loading progress
+     * @param task The task to run
+     * @return The result of the task once it completes
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        totalTasks++;
+        return CompletableFuture.supplyAsync(task, pool).whenComplete((result, error) -> completedTasks.incrementAndGet());
+    }
+
+    /**
+     * Checks if every asset has finished loading
+     * @return true if the sprites and configuration are ready (otherwise returns false)
+     */
+    public boolean isDone() {
+        return config.isDone() && sprites.isDone();
+    }
+
+    /**
+     * Gets the fraction of loading tasks that have finished
+     * @return The loading progress between 0 and 1
+     */
+    public float getProgress() {
+        return (float)completedTasks.get() / totalTasks;
+    }
+
+    /**
+     * Gets the time at which loading began
+     * @return The start time in nanoseconds (from System.nanoTime)
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the configuration, waiting for it to be read if necessary
+     * @return The configuration of the game
+     */
+    public JSONObject getConfig() {
+        return config.join();
+    }
+
+    /**
+     * Gets the sprites, waiting for them to be decoded if necessary
+     * @return The loaded sprites
+     */
+    public Sprites getSprites() {
+        return sprites.join();
+    }
+}
@@ -0,0 +1,249 @@
+package gremlins;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Simulates many seeded games in parallel without rendering and reports how they turned out, for balancing levels
+ * Usage: BatchRunner [--config path] [--level layout] [--games count] [--seed first] [--threads count] [--max-ticks ticks]
+ *                    [--wizard-cooldown seconds] [--enemy-cooldown seconds] [--lives count] [--script recording]
+ * Games are played by a BotController unless a recording is given to script the player's input
+ */
+public class BatchRunner {
+    public static final int DEFAULTGAMES = 1000;
+    public static final int DEFAULTMAXTICKS = 10 * 60 * App.FPS;
+
+    /**
+     * The constructor for the BatchRunner class
+     */
+    private BatchRunner() {}
+
+    /**
+     * Plays a single game until it ends or reaches the tick limit
+     * Every game has its own engine, level and random number generator, so games can run on any thread
+     * @param config The game configuration
+     * @param seed The seed of the game's random number generator
+     * @param controller The controller deciding the player's input
+     * @param maxTicks The most ticks the game is played for
+     * @return The outcome of the game
+     */
+    public static SimulationResult simulate(JSONObject config, long seed, PlayerController controller, long maxTicks) {
+        Engine engine = new Engine(config, Sprites.headless(), new Random(seed));
+        Input input = new Input();
+
+        long tick = 0;
+        while (engine.isGameActive() && tick < maxTicks) {
+            controller.update(engine, input);
+            engine.step(input);
+            tick++;
+        }
+
+        return new SimulationResult(seed, engine.isGameWon(), engine.isGameActive(), tick,
+            engine.getDeaths(CollisionType.ENEMY), engine.getDeaths(CollisionType.ENEMYPROJECTILE));
+    }
+
+    /**
+     * Simulates games with consecutive seeds in parallel
+     * @param config The game configuration
+     * @param firstSeed The seed of the first game
+     * @param games The number of games
+     * @param threads The number of threads the games are spread across
+     * @param controllers Creates the controller for each game
+     * @param maxTicks The most ticks each game is played for
+     * @return The outcome of every game, in seed order
+     * @throws InterruptedException If the simulation was interrupted
+     * @throws ExecutionException If a game failed
+     */
+    public static List<SimulationResult> run(JSONObject config, long firstSeed, int games, int threads, Supplier<PlayerController> controllers, long maxTicks) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SimulationResult>> futures = new ArrayList<Future<SimulationResult>>();
+            for (int game = 0; game < games; game++) {
+                long seed = firstSeed + game;
+                futures.add(pool.submit(() -> simulate(config, seed, controllers.get(), maxTicks)));
+            }
+
+            List<SimulationResult> results = new ArrayList<SimulationResult>();
+            for (Future<SimulationResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Creates a configuration containing a single level
+     * The level's cooldowns and size are taken from its entry in the configuration, or from the first entry if it has none
+     * @param config The full game configuration
+     * @param layout The file path of the level
+     * @return The configuration for the level
+     */
+    public static JSONObject singleLevelConfig(JSONObject config, String layout) {
+        JSONArray levels = config.getJSONArray("levels");
+        JSONObject entry = levels.getJSONObject(0);
+        for (int i = 0; i < levels.size(); i++) {
+            if (levels.getJSONObject(i).getString("layout").equals(layout)) {
+                entry = levels.getJSONObject(i);
+            }
+        }
+
+        // Copies the entry, keeping its cooldowns and size
+        JSONObject level = JSONObject.parse(entry.toString());
+        level.setString("layout", layout);
+
+        JSONObject single = new JSONObject();
+        single.setJSONArray("levels", new JSONArray().append(level));
+        single.setInt("lives", config.getInt("lives"));
+        return single;
+    }
+
+    /**
+     * Sets a value on every level of a configuration
+     * @param config The game configuration
+     * @param key The name of the value
+     * @param value The new value
+     */
+    private static void setForEveryLevel(JSONObject config, String key, double value) {
+        JSONArray levels = config.getJSONArray("levels");
+        for (int i = 0; i < levels.size(); i++) {
+            levels.getJSONObject(i).setDouble(key, value);
+        }
+    }
+
+    /**
+     * Prints the aggregate outcome of the simulated games
+     * @param results The outcome of every game
+     * @param threads The number of threads used
+     * @param elapsed The time taken in nanoseconds
+     */
+    public static void report(List<SimulationResult> results, int threads, long elapsed) {
+        int wins = 0;
+        int timeouts = 0;
+        long totalTicks = 0;
+        long enemyDeaths = 0;
+        long projectileDeaths = 0;
+        List<Long> winTicks = new ArrayList<Long>();
+
+        for (SimulationResult result : results) {
+            totalTicks += result.getTicks();
+            enemyDeaths += result.getEnemyDeaths();
+            projectileDeaths += result.getProjectileDeaths();
+            if (result.isWon()) {
+                wins++;
+                winTicks.add(result.getTicks());
+            }
+            else if (result.isTimedOut()) {
+                timeouts++;
+            }
+        }
+
+        int games = results.size();
+        double seconds = elapsed / 1e9;
+        System.out.printf("Games: %d on %d threads in %.2f s (%.0f games/s, %.0f ticks/s)%n", games, threads, seconds, games / seconds, totalTicks / seconds);
+        System.out.printf("Win rate: %.1f%% (%d won, %d lost, %d timed out)%n", 100.0 * wins / games, wins, games - wins - timeouts, timeouts);
+
+        if (!winTicks.isEmpty()) {
+            winTicks.sort(null);
+            double mean = winTicks.stream().mapToLong(Long::longValue).average().getAsDouble();
+            System.out.printf("Time to exit: mean %.1f s, median %.1f s, max %.1f s%n", mean / App.FPS,
+                (double)winTicks.get(winTicks.size() / 2) / App.FPS, (double)winTicks.get(winTicks.size() - 1) / App.FPS);
+        }
+
+        System.out.printf("Deaths per game: %.2f by enemies, %.2f by enemy projectiles%n", (double)enemyDeaths / games, (double)projectileDeaths / games);
+    }
+
+    /**
+     * Runs the batch simulation
+     * @param args The options of the simulation
+     * @throws Exception If the configuration or recording could not be read, or a game failed
+     */
+    public static void main(String[] args) throws Exception {
+        String configPath = App.configPath;
+        String layout = null;
+        int games = DEFAULTGAMES;
+        long firstSeed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxTicks = DEFAULTMAXTICKS;
+        Double wizardCooldown = null;
+        Double enemyCooldown = null;
+        Integer lives = null;
+        String script = null;
+
+        for (int arg = 0; arg + 1 < args.length; arg += 2) {
+            String value = args[arg + 1];
+            switch (args[arg]) {
+                case "--config":
+                    configPath = value;
+                    break;
+                case "--level":
+                    layout = value;
+                    break;
+                case "--games":
+                    games = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    firstSeed = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--max-ticks":
+                    maxTicks = Long.parseLong(value);
+                    break;
+                case "--wizard-cooldown":
+                    wizardCooldown = Double.parseDouble(value);
+                    break;
+                case "--enemy-cooldown":
+                    enemyCooldown = Double.parseDouble(value);
+                    break;
+                case "--lives":
+                    lives = Integer.parseInt(value);
+                    break;
+                case "--script":
+                    script = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[arg]);
+            }
+        }
+
+        // The configuration is only read here, so every game shares it without changing it
+        JSONObject config = Engine.loadConfig(configPath);
+        if (layout != null) {
+            config = singleLevelConfig(config, layout);
+        }
+        if (wizardCooldown != null) {
+            setForEveryLevel(config, "wizard_cooldown", wizardCooldown);
+        }
+        if (enemyCooldown != null) {
+            setForEveryLevel(config, "enemy_cooldown", enemyCooldown);
+        }
+        if (lives != null) {
+            config.setInt("lives", lives);
+        }
+
+        Supplier<PlayerController> controllers = BotController::new;
+        if (script != null) {
+            byte[] recording = Files.readAllBytes(Paths.get(script));
+            controllers = () -> new ScriptedController(recording);
+        }
+
+        long start = System.nanoTime();
+        List<SimulationResult> results = run(config, firstSeed, games, threads, controllers, maxTicks);
+        report(results, threads, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,268 @@
+package gremlins;
+
+import java.util.Arrays;
+
+/**
+ * A simple bot that walks the shortest path to the exit, shooting through any bricks and enemies in its way
+ * Bricks count as passable since the bot can break them, while stonewalls do not
+ * Cells next to an enemy, and cells an enemy projectile reaches while the bot crosses a tile, are threatened. When the next
+ * step is threatened the bot takes a path around the threats, or waits (retreating if its own cell is threatened)
+ */
+public class BotController implements PlayerController {
+    private static final int UNVISITED = -1;
+
+    // The number of ticks the player takes to cross a tile
+    private static final int ticksPerStep = App.SPRITESIZE / App.PLAYERSPEED;
+
+    // Enemies closer than this many tiles are not aimed at, since turning towards them also steps towards them
+    private static final int minAimDistance = 2;
+
+    // Cached since values() copies the array on every call
+    private static final Direction[] directions = Direction.values();
+
+    // Search buffers, reused every time the path is found
+    private int[] previous = new int[0];
+    private int[] queue = new int[0];
+
+    // The cells threatened by enemies and their projectiles, and the cells holding an enemy, found again before every step
+    private boolean[] threats = new boolean[0];
+    private boolean[] enemyCells = new boolean[0];
+
+    /**
+     * The constructor for the BotController class
+     */
+    public BotController() {}
+
+    /**
+     * Moves the player one step along the shortest path to an exit, avoiding threatened cells, and keeps firing
+     * When the weapon is about to fire and an enemy is in a clear line, the player turns to face the enemy instead
+     * @param engine The engine running the game
+     * @param input The input given to the engine for the next tick
+     */
+    @Override
+    public void update(Engine engine, Input input) {
+        Player player = engine.getPlayer();
+        Level level = engine.getLevel();
+        TileGrid tileMap = level.getMap();
+
+        // The player only accepts a new direction once it reaches the centre of a tile
+        input.setCharPressed(App.weaponChars[0]);
+        if (player.getX() % App.SPRITESIZE != 0 || player.getY() % App.SPRITESIZE != 0) {
+            return;
+        }
+
+        int cols = tileMap.getCols();
+        int row = GameObject.pixelToGrid(player.getY());
+        int col = GameObject.pixelToGrid(player.getX());
+        findThreats(level);
+
+        Direction direction = aim(tileMap, player.getWeapons().get(App.weaponChars[0]), row, col);
+        if (direction == null) {
+            direction = search(tileMap, row, col, false);
+
+            // A threatened step is replaced by a safe path, or by waiting if there is none
+            if (direction != null && threats[(row + direction.getY()) * cols + col + direction.getX()]) {
+                direction = search(tileMap, row, col, true);
+            }
+            if (direction == null && threats[row * cols + col]) {
+                direction = retreat(tileMap, row, col);
+            }
+        }
+
+        input.setRightPressed(direction == Direction.EAST);
+        input.setLeftPressed(direction == Direction.WEST);
+        input.setUpPressed(direction == Direction.NORTH);
+        input.setDownPressed(direction == Direction.SOUTH);
+    }
+
+    /**
+     * Marks the cells that are unsafe to enter during the player's next step, and the cells holding enemies
+     * @param level The level being played
+     */
+    private void findThreats(Level level) {
+        TileGrid tileMap = level.getMap();
+        int cols = tileMap.getCols();
+        int cellCount = tileMap.getRows() * cols;
+        if (threats.length != cellCount) {
+            threats = new boolean[cellCount];
+            enemyCells = new boolean[cellCount];
+        }
+        Arrays.fill(threats, false);
+        Arrays.fill(enemyCells, false);
+
+        // Enemies can turn at any tile, so every cell around the ones they cover is unsafe
+        for (Enemy enemy : level.getEnemies()) {
+            int firstRow = GameObject.pixelToGrid(enemy.getY());
+            int firstCol = GameObject.pixelToGrid(enemy.getX());
+            int lastRow = GameObject.pixelToGrid(enemy.getY() + App.SPRITESIZE - 1);
+            int lastCol = GameObject.pixelToGrid(enemy.getX() + App.SPRITESIZE - 1);
+            for (int row = firstRow - 1; row <= lastRow + 1; row++) {
+                for (int col = firstCol - 1; col <= lastCol + 1; col++) {
+                    markThreat(tileMap, row, col);
+                }
+            }
+            enemyCells[GameObject.pixelToGrid(enemy.getY() + App.SPRITESIZE / 2) * cols + GameObject.pixelToGrid(enemy.getX() + App.SPRITESIZE / 2)] = true;
+        }
+
+        // Enemy projectiles threaten the cells they reach before the player could cross a tile
+        ProjectileStore projectiles = level.getProjectiles();
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            Direction vector = projectiles.getVector(slot);
+            if (projectiles.getCollisionType(slot) != CollisionType.ENEMYPROJECTILE || vector == null) {
+                continue;
+            }
+
+            ProjectileType type = projectiles.getType(slot);
+            int row = GameObject.pixelToGrid(projectiles.getY(slot));
+            int col = GameObject.pixelToGrid(projectiles.getX(slot));
+            int reach = type.speed * ticksPerStep / App.SPRITESIZE + 1;
+            markThreat(tileMap, row, col);
+            for (int i = 0; i < reach; i++) {
+                row += vector.getY();
+                col += vector.getX();
+                if (!tileMap.inBounds(row, col) || !MovingObject.canPassThrough(tileMap.getStrength(row, col), type.etherealness)) {
+                    break;
+                }
+                markThreat(tileMap, row, col);
+            }
+        }
+    }
+
+    /**
+     * Marks a cell as unsafe, if it is inside the map
+     * @param tileMap The map being played
+     * @param row The row of the cell
+     * @param col The column of the cell
+     */
+    private void markThreat(TileGrid tileMap, int row, int col) {
+        if (tileMap.inBounds(row, col)) {
+            threats[row * tileMap.getCols() + col] = true;
+        }
+    }
+
+    /**
+     * Finds an enemy the player's next shot would hit
+     * @param tileMap The map being played
+     * @param weapon The weapon the player fires
+     * @param row The row of the player
+     * @param col The column of the player
+     * @return The direction of the enemy (returns null if the weapon is not about to fire or no enemy is in a clear line)
+     */
+    private Direction aim(TileGrid tileMap, Weapon weapon, int row, int col) {
+        // The weapon's cooldown is reduced once more before the player fires
+        if (weapon == null || weapon.getCurrentCooldown() > (double)1 / App.FPS) {
+            return null;
+        }
+
+        int etherealness = weapon.getProjectileType().etherealness;
+        for (Direction direction : directions) {
+            int testRow = row + direction.getY();
+            int testCol = col + direction.getX();
+            for (int distance = 1; tileMap.inBounds(testRow, testCol); distance++) {
+                if (!MovingObject.canPassThrough(tileMap.getStrength(testRow, testCol), etherealness)) {
+                    break;
+                }
+                if (enemyCells[testRow * tileMap.getCols() + testCol]) {
+                    if (distance >= minAimDistance) {
+                        return direction;
+                    }
+                    break;
+                }
+                testRow += direction.getY();
+                testCol += direction.getX();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a neighbouring cell the player can walk into that is not threatened
+     * @param tileMap The map being played
+     * @param row The row of the player
+     * @param col The column of the player
+     * @return The direction of the safe cell (returns null if every neighbouring cell is unsafe or blocked)
+     */
+    private Direction retreat(TileGrid tileMap, int row, int col) {
+        for (Direction direction : directions) {
+            int nextRow = row + direction.getY();
+            int nextCol = col + direction.getX();
+            if (tileMap.inBounds(nextRow, nextCol) && !threats[nextRow * tileMap.getCols() + nextCol]
+                && MovingObject.canPassThrough(tileMap.getStrength(nextRow, nextCol), 0)) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the first step of the shortest path from a cell to the nearest exit, ignoring enemies and projectiles
+     * @param tileMap The map being searched
+     * @param startRow The row the path starts from
+     * @param startCol The column the path starts from
+     * @return The direction of the first step (returns null if no exit can be reached)
+     */
+    public Direction nextStep(TileGrid tileMap, int startRow, int startCol) {
+        return search(tileMap, startRow, startCol, false);
+    }
+
+    /**
+     * Finds the first step of the shortest path from a cell to the nearest exit
+     * @param tileMap The map being searched
+     * @param startRow The row the path starts from
+     * @param startCol The column the path starts from
+     * @param isThreatAvoided Whether the path must avoid the cells marked as threatened
+     * @return The direction of the first step (returns null if no exit can be reached)
+     */
+    private Direction search(TileGrid tileMap, int startRow, int startCol, boolean isThreatAvoided) {
+        int cols = tileMap.getCols();
+        int cellCount = tileMap.getRows() * cols;
+        if (previous.length != cellCount) {
+            previous = new int[cellCount];
+            queue = new int[cellCount];
+        }
+        Arrays.fill(previous, UNVISITED);
+
+        int start = startRow * cols + startCol;
+        previous[start] = start;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+
+        // Breadth first search over every cell that is not a stonewall (or threatened, if threats are avoided)
+        int exit = UNVISITED;
+        while (head < tail) {
+            int cell = queue[head++];
+            Tile tile = tileMap.getTile(cell);
+            if (tile != null && tile.getTileType() == TileType.EXIT) {
+                exit = cell;
+                break;
+            }
+
+            for (Direction direction : directions) {
+                int row = cell / cols + direction.getY();
+                int col = cell % cols + direction.getX();
+                if (!tileMap.inBounds(row, col)) {
+                    continue;
+                }
+
+                int next = row * cols + col;
+                if (previous[next] == UNVISITED && tileMap.getStrength(row, col) != TileType.STONEWALL.strength
+                    && !(isThreatAvoided && threats[next])) {
+                    previous[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        if (exit == UNVISITED || exit == start) {
+            return null;
+        }
+
+        // Walks back along the path to find the step taken from the start
+        int step = exit;
+        while (previous[step] != start) {
+            step = previous[step];
+        }
+        return Direction.fromVector(step % cols - startCol, step / cols - startRow);
+    }
+}
@@ -0,0 +1,137 @@
+package gremlins;
+
+/**
+ * The part of a level's map shown in the window, kept centred on the player
+ * Near the edges of the map the view stops scrolling, and maps no larger than the window are shown from their top left corner
+ */
+public class Camera {
+    private int viewWidth;
+    private int viewHeight;
+
+    // The pixel coordinates of the view's top left corner in the map
+    private int x = 0;
+    private int y = 0;
+
+    private int rows;
+    private int cols;
+
+    /**
+     * The constructor for the Camera class
+     * @param viewWidth The width of the view in pixels
+     * @param viewHeight The height of the view in pixels
+     */
+    public Camera(int viewWidth, int viewHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+    }
+
+    /**
+     * Moves the view so the target is in its centre, without showing anything outside the map
+     * @param target The object the view follows
+     * @param tileMap The map being viewed
+     */
+    public void follow(GameObject target, TileGrid tileMap) {
+        follow(target.getX(), target.getY(), tileMap);
+    }
+
+    /**
+     * Moves the view so a position is in its centre, without showing anything outside the map
+     * @param targetX The pixel x-coordinate the view follows
+     * @param targetY The pixel y-coordinate the view follows
+     * @param tileMap The map being viewed
+     */
+    public void follow(int targetX, int targetY, TileGrid tileMap) {
+        rows = tileMap.getRows();
+        cols = tileMap.getCols();
+        x = centre(targetX, viewWidth, cols * App.SPRITESIZE);
+        y = centre(targetY, viewHeight, rows * App.SPRITESIZE);
+    }
+
+    /**
+     * Finds the start of the view along one axis
+     * @param position The pixel position of the target
+     * @param viewSize The size of the view in pixels
+     * @param mapSize The size of the map in pixels
+     * @return The pixel position of the view's start
+     */
+    private static int centre(int position, int viewSize, int mapSize) {
+        if (mapSize <= viewSize) {
+            return 0;
+        }
+        return Math.min(Math.max(position + App.SPRITESIZE / 2 - viewSize / 2, 0), mapSize - viewSize);
+    }
+
+    /**
+     * Gets the pixel x-coordinate of the view's left edge
+     * @return The x-coordinate in the map
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the pixel y-coordinate of the view's top edge
+     * @return The y-coordinate in the map
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets the width of the view
+     * @return The width in pixels
+     */
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    /**
+     * Gets the height of the view
+     * @return The height in pixels
+     */
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    /**
+     * Gets the first row of tiles that can be seen
+     * @return The row at the top of the view
+     */
+    public int getFirstRow() {
+        return y / App.SPRITESIZE;
+    }
+
+    /**
+     * Gets the first column of tiles that can be seen
+     * @return The column at the left of the view
+     */
+    public int getFirstCol() {
+        return x / App.SPRITESIZE;
+    }
+
+    /**
+     * Gets the last row of tiles that can be seen
+     * @return The row at the bottom of the view
+     */
+    public int getLastRow() {
+        return Math.min((y + viewHeight - 1) / App.SPRITESIZE, rows - 1);
+    }
+
+    /**
+     * Gets the last column of tiles that can be seen
+     * @return The column at the right of the view
+     */
+    public int getLastCol() {
+        return Math.min((x + viewWidth - 1) / App.SPRITESIZE, cols - 1);
+    }
+
+    /**
+     * Checks if any part of a sprite can be seen
+     * @param xPos The pixel x-coordinate of the sprite
+     * @param yPos The pixel y-coordinate of the sprite
+     * @return true if the sprite overlaps the view (otherwise returns false)
+     */
+    public boolean isVisible(int xPos, int yPos) {
+        return xPos + App.SPRITESIZE > x && xPos < x + viewWidth && yPos + App.SPRITESIZE > y && yPos < y + viewHeight;
+    }
+}
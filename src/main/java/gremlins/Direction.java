@@ -12,6 +12,9 @@ public enum Direction {
 
     public final int[] vector;
 
+    // Cached since values() copies the array on every call
+    private static final Direction[] directions = values();
+
     private Direction(int xValue, int yValue) {
         this.vector = new int[] {xValue, yValue};
     }
@@ -37,7 +40,7 @@ public enum Direction {
      * @return The vector rotated anticlockwise
      */
     public Direction anticlockwise() {
-        return Direction.values()[(this.ordinal() + 1) % 4];
+        return directions[(this.ordinal() + 1) % 4];
     }
 
     /**
@@ -45,7 +48,7 @@ public enum Direction {
      * @return The vector flipped
      */
     public Direction flip() {
-        return Direction.values()[(this.ordinal() + 2) % 4];
+        return directions[(this.ordinal() + 2) % 4];
     }
 
     /**
@@ -53,7 +56,7 @@ public enum Direction {
      * @return The vector rotated clockwise
      */
     public Direction clockwise() {
-        return Direction.values()[(this.ordinal() + 3) % 4];
+        return directions[(this.ordinal() + 3) % 4];
     }
 
     /**
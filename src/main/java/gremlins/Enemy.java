@@ -2,15 +2,22 @@ package gremlins;
 
 import processing.core.PImage;
 
+import java.util.Arrays;
 import java.util.Random;
 
 /**
  * The main class for enemies. Enemies kill players with their bodies and projectiles
  */
 public class Enemy extends MovingObject {
+    // The number of random empty cells tried before every far enough cell is counted
+    private static final int teleportAttempts = 16;
+
     protected Weapon weapon;
     protected Random rand;
 
+    // The positions in the map's empty list of the empty tiles too close to the player, kept between teleports
+    private int[] nearRanks;
+
     /**
      * The constructor for the Enemy class
      * @param xPos The pixel x-coordinate of the enemy
@@ -22,7 +29,7 @@ public class Enemy extends MovingObject {
      * @param rand The random number generator for the enemy
      * @param tileMap The tile map for the level where the enemy is placed
      */
-    public Enemy(int xPos, int yPos, PImage[] spriteSet, int speed, int etherealness, Weapon weapon, Random rand, Tile[][] tileMap) {
+    public Enemy(int xPos, int yPos, PImage[] spriteSet, int speed, int etherealness, Weapon weapon, Random rand, TileGrid tileMap) {
         super(xPos, yPos, spriteSet, speed, etherealness, CollisionType.ENEMY);
         this.weapon = weapon;
         this.rand = rand;
@@ -35,7 +42,7 @@ public class Enemy extends MovingObject {
      * @param tileMap The tile map for the level where the enemy exists
      * @return true if the enemy can be assigned a direction (otherwise returns false)
      */
-    public boolean chooseStartingDirection(Tile[][] tileMap) {
+    public boolean chooseStartingDirection(TileGrid tileMap) {
         // First picks an ordinal corresponding to a possible direction
         int direction = rand.nextInt(4);
 
@@ -59,7 +66,7 @@ public class Enemy extends MovingObject {
      * @return true if the enemy finishes moving from one tile to another (otherwise returns false)
      */
     public boolean handleMovement(Level level) {
-        Tile[][] tileMap = level.getMap();
+        TileGrid tileMap = level.getMap();
 
         // If the enemy has no direction, it doesn't move
         if (vector == null) {
@@ -118,31 +125,140 @@ public class Enemy extends MovingObject {
     }
 
     /**
-     * Teleports the enemy after being killed
+     * Teleports the enemy after being killed to a random empty tile far enough from the player
+     * Only empty tiles are drawn from, and after a few missed draws only the tiles too close to the player are visited, so the
+     * search always ends in time independent of the size of the map
+     * If no empty tile is far enough, the enemy is moved to the empty tile furthest from the player instead
      * @param player The player
      * @param tileMap The tileMap of the level the enemy exists in
+     * @return true if the enemy was moved far enough from the player (otherwise returns false)
      */
-    public void teleport(Player player, Tile[][] tileMap) {
-        // Keeps trying to find a valid tile to teleport until one is found
-        boolean success = false;
-        while (success == false) {    
-            int testCol = rand.nextInt(App.COLS);
-            int testRow = rand.nextInt(App.ROWS);
-            int testXPos = gridToPixel(testCol);
-            int testYPos = gridToPixel(testRow);
-
-            // Checks if the enemy is far enough from the player
-            if (Math.abs(player.xPos - testXPos) + Math.abs(player.yPos - testYPos) >= App.TELEPORTRANGE * App.SPRITESIZE) {
-
-                // Checks if the tile is empty 
-                if (tileMap[testRow][testCol] == null) {    
-                    setCoords(testXPos, testYPos);
-                    moveRemaining = 0;
-
-                    success = true;
+    public boolean teleport(Player player, TileGrid tileMap) {
+        TeleportEvent event = new TeleportEvent();
+        event.begin();
+        event.enemy = getClass().getSimpleName();
+        boolean isFar = teleport(player, tileMap, event);
+        event.far = isFar;
+        event.commit();
+        return isFar;
+    }
+
+    /**
+     * Moves the enemy to a random empty tile far enough from the player, noting how the tile was found
+     * @param player The player
+     * @param tileMap The tileMap of the level the enemy exists in
+     * @param event The flight recorder event given the number of attempts and whether the tiles near the player were scanned after the random draws missed
+     * @return true if the tile reached is far enough from the player (otherwise returns false)
+     */
+    private boolean teleport(Player player, TileGrid tileMap, TeleportEvent event) {
+        int emptyCount = tileMap.getEmptyCount();
+
+        // Without any empty tile, the enemy stays where it is
+        if (emptyCount == 0) {
+            return false;
+        }
+
+        // On most maps, a random empty tile is usually far enough away
+        for (int attempt = 0; attempt < teleportAttempts; attempt++) {
+            event.attempts = attempt + 1;
+            int cell = tileMap.getEmptyCell(rand.nextInt(emptyCount));
+            if (isFarFromPlayer(player, cell, tileMap)) {
+                moveToCell(cell, tileMap);
+                return true;
+            }
+        }
+
+        // Otherwise the empty tiles too close to the player are found within the diamond around them
+        event.scanned = true;
+        int range = App.TELEPORTRANGE * App.SPRITESIZE;
+        int cols = tileMap.getCols();
+        int firstRow = Math.max(Math.floorDiv(player.yPos - range, App.SPRITESIZE) + 1, 0);
+        int lastRow = Math.min(Math.floorDiv(player.yPos + range - 1, App.SPRITESIZE), tileMap.getRows() - 1);
+        int nearCount = 0;
+        int furthestCell = -1;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int rowRange = range - Math.abs(player.yPos - gridToPixel(row));
+            int firstCol = Math.max(Math.floorDiv(player.xPos - rowRange, App.SPRITESIZE) + 1, 0);
+            int lastCol = Math.min(Math.floorDiv(player.xPos + rowRange - 1, App.SPRITESIZE), cols - 1);
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (!tileMap.isEmpty(row, col)) {
+                    continue;
+                }
+
+                if (nearRanks == null || nearCount == nearRanks.length) {
+                    nearRanks = nearRanks == null ? new int[2 * App.TELEPORTRANGE * (App.TELEPORTRANGE + 1) + 1] : Arrays.copyOf(nearRanks, nearCount * 2);
+                }
+                nearRanks[nearCount++] = tileMap.getEmptyRank(row, col);
+
+                int cell = row * cols + col;
+                if (furthestCell < 0 || distanceFromPlayer(player, cell, tileMap) > distanceFromPlayer(player, furthestCell, tileMap)) {
+                    furthestCell = cell;
                 }
             }
         }
+
+        // Every other empty tile is far enough, and one is chosen by skipping over the close tiles in the empty list
+        int farCount = emptyCount - nearCount;
+        if (farCount > 0) {
+            Arrays.sort(nearRanks, 0, nearCount);
+            int choice = rand.nextInt(farCount);
+            for (int i = 0; i < nearCount && nearRanks[i] <= choice; i++) {
+                choice++;
+            }
+            moveToCell(tileMap.getEmptyCell(choice), tileMap);
+            return true;
+        }
+
+        // If no empty tile is far enough, the furthest one is used
+        moveToCell(furthestCell, tileMap);
+        return false;
+    }
+
+    /**
+     * Measures the pixel distance along the grid from the player to a tile
+     * @param player The player
+     * @param cell The index of the tile (row * cols + col)
+     * @param tileMap The tileMap of the level the enemy exists in
+     * @return The Manhattan distance in pixels
+     */
+    private static int distanceFromPlayer(Player player, int cell, TileGrid tileMap) {
+        int testXPos = gridToPixel(cell % tileMap.getCols());
+        int testYPos = gridToPixel(cell / tileMap.getCols());
+        return Math.abs(player.xPos - testXPos) + Math.abs(player.yPos - testYPos);
+    }
+
+    /**
+     * Checks if a tile is far enough from the player to teleport to
+     * @param player The player
+     * @param cell The index of the tile (row * cols + col)
+     * @param tileMap The tileMap of the level the enemy exists in
+     * @return true if the tile is at least the teleport range from the player (otherwise returns false)
+     */
+    private static boolean isFarFromPlayer(Player player, int cell, TileGrid tileMap) {
+        return distanceFromPlayer(player, cell, tileMap) >= App.TELEPORTRANGE * App.SPRITESIZE;
+    }
+
+    /**
+     * Places the enemy at the centre of a tile
+     * @param cell The index of the tile (row * cols + col)
+     * @param tileMap The tileMap of the level the enemy exists in
+     */
+    private void moveToCell(int cell, TileGrid tileMap) {
+        setCoords(gridToPixel(cell % tileMap.getCols()), gridToPixel(cell / tileMap.getCols()));
+        moveRemaining = 0;
+    }
+
+    /**
+     * Returns the enemy to a captured state
+     * @param xPos The pixel x-coordinate of the enemy
+     * @param yPos The pixel y-coordinate of the enemy
+     * @param vector The direction the enemy moves in
+     */
+    public void restore(int xPos, int yPos, Direction vector) {
+        setCoords(xPos, yPos);
+        this.vector = vector;
+        moveRemaining = 0;
+        weapon.resetCooldown();
     }
 
     /**
@@ -0,0 +1,456 @@
+package gremlins;
+
+import processing.core.PApplet;
+import processing.data.JSONObject;
+import processing.data.JSONArray;
+
+import java.io.File;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The headless game engine. Runs the game logic one tick at a time without any rendering
+ */
+public class Engine {
+    // Level files are read ahead of time on a background thread shared by every engine that asks for preloading
+    private static final ExecutorService preloader = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "gremlins-level-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Sprites sprites;
+    private Random rand;
+    private int levelNumber = 0;
+    private int levelCount;
+    private JSONArray levels;
+    private Level level;
+    private Player player;
+    private int maxLives;
+
+    private Map<String, Weapon> weaponList;
+
+    private boolean isGameActive = true;
+    private boolean isGameWon = false;
+    private long tickCount = 0;
+
+    // Times the phases of every tick when profiling is switched on
+    private FrameProfiler profiler = new FrameProfiler(Boolean.getBoolean(App.PROFILEPROPERTY));
+
+    // Receives the game's events when logging is switched on
+    private EventLog eventLog;
+
+    // The number of times the player was killed by each type of object
+    private int[] deaths = new int[CollisionType.values().length];
+
+    // The level being read in the background, only while preloading is switched on
+    private boolean isPreloading = false;
+    private Future<LevelData> preloadedLevel;
+    private int preloadedLevelNumber = 0;
+
+    private long lastTransitionTime = 0;
+    private boolean isLastTransitionPreloaded = false;
+
+    /**
+     * The constructor for the Engine class. Starts the game at the first level
+     * @param config The game configuration containing the levels and lives
+     * @param sprites The sprites given to the objects in the game
+     * @param rand The random number generator for the game
+     */
+    public Engine(JSONObject config, Sprites sprites, Random rand) {
+        this.sprites = sprites;
+        this.rand = rand;
+
+        maxLives = config.getInt("lives");
+        levels = config.getJSONArray("levels");
+        levelCount = levels.size();
+
+        progressLevel();
+    }
+
+    /**
+     * Reads the game configuration from a JSON file
+     * @param configPath The file path of the configuration
+     * @return The game configuration
+     */
+    public static JSONObject loadConfig(String configPath) {
+        return PApplet.loadJSONObject(new File(configPath));
+    }
+
+    /**
+     * Advances the game by a single tick
+     * @param input The player's input for the tick
+     * @return true if the game is still active (otherwise returns false)
+     */
+    public boolean step(Input input) {
+        if (!isGameActive) {
+            return false;
+        }
+
+        // Updating level elements
+        TickEvent event = new TickEvent();
+        profiler.beginTick(event.isEnabled());
+        event.begin();
+        long tickStart = profiler.start();
+        level.tick();
+
+        // Handling player movement and weapon firing
+        long time = profiler.start();
+        player.handleMovement(input.isRightPressed(), input.isLeftPressed(), input.isUpPressed(), input.isDownPressed(), level);
+        player.tick();
+        player.useWeapon(input.getCharPressed(), level.getProjectiles());
+
+        // Handling player powerups
+        for (Powerup powerup : player.getPowerups()) {
+            if (!powerup.reduceTimers()) {
+                powerup.disablePowerup(level);
+            }
+        }
+
+        profiler.lap(FramePhase.PLAYER, time);
+        profiler.lap(FramePhase.TICK, tickStart);
+        profiler.countEntities(level.getEnemies().size(), level.getProjectiles().size());
+
+        if (event.shouldCommit()) {
+            event.levelNumber = levelNumber;
+            event.enemies = level.getEnemies().size();
+            event.projectiles = level.getProjectiles().size();
+            event.setPhaseTimes(profiler);
+            event.commit();
+        }
+
+        tickCount++;
+        return isGameActive;
+    }
+
+    /**
+     * Counts a death of the player
+     * @param cause The type of object that killed the player
+     */
+    public void recordDeath(CollisionType cause) {
+        deaths[cause.ordinal()]++;
+        logEvent(GameEventType.DEATH, GameObject.pixelToGrid(player.getY()), GameObject.pixelToGrid(player.getX()), player.getLives() - 1, cause.name());
+    }
+
+    /**
+     * Sets the log the game's events are written to
+     * @param eventLog The event log (null stops logging)
+     */
+    public void setEventLog(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Adds an event to the event log, if there is one. Never waits for the log to be written
+     * @param type The kind of event
+     * @param row The row of the event
+     * @param col The column of the event
+     * @param value A number describing the event
+     * @param detail A name describing the event (can be null)
+     */
+    public void logEvent(GameEventType type, int row, int col, int value, String detail) {
+        if (eventLog != null) {
+            eventLog.log(type, tickCount, levelNumber, row, col, value, detail);
+        }
+    }
+
+    /**
+     * Gets the number of times the player was killed by a type of object since the engine was created
+     * @param cause The type of object that killed the player
+     * @return The number of deaths
+     */
+    public int getDeaths(CollisionType cause) {
+        return deaths[cause.ordinal()];
+    }
+
+    /**
+     * Ends the current game
+     * @param isGameWon Determines if the game was won or lost
+     */
+    public void endGame(boolean isGameWon) {
+        isGameActive = false;
+        this.isGameWon = isGameWon;
+        logEvent(GameEventType.END, 0, 0, isGameWon ? 1 : 0, isGameWon ? "won" : "lost");
+
+        // A game that preloads can be restarted, and a new game starts from the first level
+        preloadLevel(1);
+    }
+
+    /**
+     * Switches reading the next level's file in the background on or off. Preloading is off by default, since only a game
+     * shown in a window stalls drawing while a level starts, and only such a game is restarted after it ends
+     * @param isPreloading Whether the next level is read in the background
+     */
+    public void setPreloading(boolean isPreloading) {
+        this.isPreloading = isPreloading;
+        if (!isPreloading && preloadedLevel != null) {
+            preloadedLevel.cancel(false);
+            preloadedLevel = null;
+        }
+        else if (isPreloading && preloadedLevel == null) {
+            preloadLevel(isGameActive ? levelNumber + 1 : 1);
+        }
+    }
+
+    /**
+     * Tries to progress to the next level. If there is no next level, the game ends
+     * @return true if there is a next level (otherwise returns false)
+     */
+    public boolean progressLevel() {
+        long transitionStart = System.nanoTime();
+        LevelLoadEvent event = new LevelLoadEvent();
+        event.begin();
+
+        // Progresses a level and checks that the max level count has not been reached
+        levelNumber++;
+        if (levelNumber <= levelCount) {
+            // Gets the next level's data
+            JSONObject levelJSON = levels.getJSONObject(levelNumber - 1);
+
+            double wizardCooldown = levelJSON.getDouble("wizard_cooldown");
+            double enemyCooldown = levelJSON.getDouble("enemy_cooldown");
+
+            // Configures the weapons for the level
+            weaponList = new HashMap<String, Weapon>();
+            weaponList.put("Fireball Launcher", new Weapon(ProjectileType.FIREBALL, sprites.fireballSprites, wizardCooldown));
+            weaponList.put("Slimeball Launcher", new Weapon(ProjectileType.SLIMEBALL, sprites.slimeballSprites, enemyCooldown));
+            weaponList.put("Thunderball Launcher", new Weapon(ProjectileType.THUNDERBALL, sprites.thunderballSprites, wizardCooldown));
+            weaponList.put("Ghostball Launcher", new Weapon(ProjectileType.GHOSTBALL, sprites.ghostballSprites, enemyCooldown));
+            weaponList.put("Hydroball Launcher", new Weapon(ProjectileType.HYDROBALL, sprites.hydroballSprites, wizardCooldown));
+            weaponList.put("Furyball Launcher", new Weapon(ProjectileType.FURYBALL, sprites.furyballSprites, enemyCooldown));
+
+            Map<Character, Weapon> playerWeapons = new HashMap<Character, Weapon>();
+            playerWeapons.put(' ', weaponList.get("Fireball Launcher").copy());
+
+            // Generates a new player for the next level (preserving the lives)
+            int lives = maxLives;
+            if (player != null) {
+                lives = player.getLives();
+            }
+            player = new Player(0, 0, sprites.wizardSprites, App.PLAYERSPEED, lives, playerWeapons);
+            // Only reading the file happens in the background, since building the level uses the game's random number generator
+            String layout = levelJSON.getString("layout");
+            long parseStart = System.nanoTime();
+            LevelData data = takeLevelData(levelNumber, levelJSON);
+            long parseTime = System.nanoTime() - parseStart;
+            level = new Level(this, player, layout, data, weaponList, rand);
+
+            event.levelNumber = levelNumber;
+            event.layout = layout;
+            event.parseTime = parseTime;
+            event.preloaded = isLastTransitionPreloaded;
+            event.valid = level.getValidity();
+            event.commit();
+
+            // Checks that the level is valid (otherwise skips it)
+            if (!level.getValidity()) {
+                progressLevel();
+            }
+            else {
+                lastTransitionTime = System.nanoTime() - transitionStart;
+                logEvent(GameEventType.LEVEL, 0, 0, levelNumber, layout);
+                preloadLevel(levelNumber + 1);
+            }
+
+            return true;
+        }
+
+        // If there are no more levels, the game is won
+        else {
+            endGame(true);
+            return false;
+        }
+    }
+
+    /**
+     * Starts reading a level's file in the background, if preloading is switched on
+     * @param number The number of the level (starting from 1)
+     */
+    private void preloadLevel(int number) {
+        if (preloadedLevel != null) {
+            preloadedLevel.cancel(false);
+        }
+        if (!isPreloading || number > levelCount) {
+            preloadedLevel = null;
+            return;
+        }
+
+        JSONObject levelJSON = levels.getJSONObject(number - 1);
+        preloadedLevelNumber = number;
+        preloadedLevel = preloader.submit(() -> loadLevelData(levelJSON));
+    }
+
+    /**
+     * Reads a level's file. A level's size is taken from its file unless the configuration gives its rows and columns
+     * @param levelJSON The level's entry in the configuration
+     * @return The level's layout (returns null if the level is invalid)
+     */
+    private static LevelData loadLevelData(JSONObject levelJSON) {
+        int rows = levelJSON.getInt("rows", LevelData.ANYSIZE);
+        int cols = levelJSON.getInt("cols", LevelData.ANYSIZE);
+        return LevelData.load(levelJSON.getString("layout"), rows, cols);
+    }
+
+    /**
+     * Gets the layout of a level, using the preloaded layout if it finished reading
+     * If the preload is not finished, the file is read immediately instead of waiting for it
+     * @param number The number of the level (starting from 1)
+     * @param levelJSON The level's entry in the configuration
+     * @return The level's layout (returns null if the level is invalid)
+     */
+    private LevelData takeLevelData(int number, JSONObject levelJSON) {
+        Future<LevelData> preload = preloadedLevel;
+        preloadedLevel = null;
+        isLastTransitionPreloaded = false;
+
+        if (preload != null && preloadedLevelNumber == number) {
+            if (preload.isDone()) {
+                try {
+                    LevelData data = preload.get();
+                    isLastTransitionPreloaded = true;
+                    return data;
+                }
+                catch (InterruptedException | ExecutionException e) {
+                    // Falls back to reading the file below
+                }
+            }
+            else {
+                preload.cancel(false);
+            }
+        }
+
+        return loadLevelData(levelJSON);
+    }
+
+    /**
+     * Creates a new game after the game ends
+     */
+    public void reset() {
+        // Resets game status variables to their default values
+        isGameActive = true;
+        isGameWon = false;
+
+        levelNumber = 0;
+        player = null;
+
+        // Progresses to the first level
+        progressLevel();
+    }
+
+    /**
+     * Gets the profiler timing the game's ticks
+     * @return The game's profiler (disabled unless profiling was switched on)
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Gets the sprites given to the objects in the game
+     * @return The game's sprites
+     */
+    public Sprites getSprites() {
+        return sprites;
+    }
+
+    /**
+     * Gets the current player
+     * @return The current player
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the current level
+     * @return The current level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the random number generator for the game
+     * @return The game's random number generator
+     */
+    public Random getRandom() {
+        return rand;
+    }
+
+    /**
+     * Gets the current level number
+     * @return The current level number (starting from 1)
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Gets the number of levels in the game
+     * @return The total number of levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Gets the list of all possible weapons for the current level
+     * @return The map of weapon names to weapons
+     */
+    public Map<String, Weapon> getWeaponsList() {
+        return weaponList;
+    }
+
+    /**
+     * Checks if the game is still being played
+     * @return true if the game is active (otherwise returns false)
+     */
+    public boolean isGameActive() {
+        return isGameActive;
+    }
+
+    /**
+     * Checks if the game was won
+     * @return true if the game was won (otherwise returns false)
+     */
+    public boolean isGameWon() {
+        return isGameWon;
+    }
+
+    /**
+     * Gets how long the last level transition stalled the game
+     * @return The time taken to start the last level in nanoseconds
+     */
+    public long getLastTransitionTime() {
+        return lastTransitionTime;
+    }
+
+    /**
+     * Checks if the next level's file has finished reading in the background
+     * @return true if the next level is ready to start without reading its file (otherwise returns false)
+     */
+    public boolean isNextLevelReady() {
+        return preloadedLevel != null && preloadedLevel.isDone();
+    }
+
+    /**
+     * Checks if the last level started from a preloaded file
+     * @return true if the level's file was read in the background (otherwise returns false)
+     */
+    public boolean isLastTransitionPreloaded() {
+        return isLastTransitionPreloaded;
+    }
+
+    /**
+     * Gets the number of ticks performed since the engine was created
+     * @return The tick count
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+}
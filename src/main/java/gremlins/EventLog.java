@@ -0,0 +1,290 @@
+package gremlins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes game events to rotating log files on a background thread, so a slow disk or pipe never stalls the game
+ * Events are placed in a ring buffer allocated up front, read by the writer thread without any locks. When the buffer
+ * is full, new events are dropped and counted rather than waiting for the writer
+ * Every line holds one event as tab separated fields: time (epoch milliseconds), tick, event, level, row, column,
+ * value and detail. The meaning of the value and detail depends on the event
+ * Events must only be logged by a single thread, the thread running the game
+ */
+public class EventLog implements Closeable {
+    public static final int DEFAULTCAPACITY = 4096;
+    public static final long DEFAULTMAXFILEBYTES = 1 << 20;
+    public static final int DEFAULTMAXFILES = 5;
+    public static final String FILENAME = "gremlins-events";
+    public static final String HEADER = "# time\ttick\tevent\tlevel\trow\tcol\tvalue\tdetail";
+
+    // How long the writer sleeps when there is nothing to write, in nanoseconds
+    private static final long idleWait = 10000000L;
+
+    // The ring buffer, where an event's slot is its sequence number masked to the capacity
+    private int mask;
+    private long[] times;
+    private long[] ticks;
+    private GameEventType[] types;
+    private int[] levels;
+    private int[] rows;
+    private int[] cols;
+    private int[] values;
+    private String[] details;
+
+    // The number of events published by the game and the number taken by the writer
+    private AtomicLong published = new AtomicLong();
+    private AtomicLong consumed = new AtomicLong();
+    private AtomicLong dropped = new AtomicLong();
+
+    // Only used by the game's thread
+    private long nextEvent = 0;
+    private long consumedSeen = 0;
+
+    // Only used by the writer thread
+    private Path dir;
+    private long maxFileBytes;
+    private int maxFiles;
+    private Writer out;
+    private long fileBytes = 0;
+    private long droppedWritten = 0;
+    private StringBuilder line = new StringBuilder();
+
+    private Thread writer;
+    private volatile boolean isClosed = false;
+
+    /**
+     * The constructor for the EventLog class. Starts the writer thread
+     * Any log already in the directory is kept as the first older file
+     * @param dir The directory the log files are written to
+     * @param capacity The number of events the buffer holds (rounded up to a power of two)
+     * @param maxFileBytes The size a log file grows to before a new one is started
+     * @param maxFiles The number of log files kept, including the current one
+     * @throws IOException If the log file could not be created
+     */
+    public EventLog(Path dir, int capacity, long maxFileBytes, int maxFiles) throws IOException {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        mask = size - 1;
+        times = new long[size];
+        ticks = new long[size];
+        types = new GameEventType[size];
+        levels = new int[size];
+        rows = new int[size];
+        cols = new int[size];
+        values = new int[size];
+        details = new String[size];
+
+        this.dir = Files.createDirectories(dir);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(maxFiles, 1);
+        rotate();
+
+        writer = new Thread(this::run, "gremlins-event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Creates an event log with the default buffer size and file rotation
+     * @param dir The directory the log files are written to
+     * @return The event log
+     * @throws IOException If the log file could not be created
+     */
+    public static EventLog open(Path dir) throws IOException {
+        return new EventLog(dir, DEFAULTCAPACITY, DEFAULTMAXFILEBYTES, DEFAULTMAXFILES);
+    }
+
+    /**
+     * Gets the path of a log file
+     * @param dir The directory the log files are written to
+     * @param age 0 for the current file, or how many files ago an older file was started
+     * @return The path of the file
+     */
+    public static Path logFile(Path dir, int age) {
+        return dir.resolve(age == 0 ? FILENAME + ".log" : FILENAME + "." + age + ".log");
+    }
+
+    /**
+     * Adds an event to the log without waiting. Must only be called by the game's thread
+     * @param type The kind of event
+     * @param tick The engine tick the event happened in
+     * @param level The number of the level the event happened in
+     * @param row The row of the event
+     * @param col The column of the event
+     * @param value A number describing the event
+     * @param detail A name describing the event (can be null)
+     * @return true if the event was added (otherwise returns false, and the event is counted as dropped)
+     */
+    public boolean log(GameEventType type, long tick, int level, int row, int col, int value, String detail) {
+        // The writer's progress is only read again when the buffer looks full
+        if (nextEvent - consumedSeen > mask) {
+            consumedSeen = consumed.get();
+            if (nextEvent - consumedSeen > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+
+        int slot = (int)nextEvent & mask;
+        times[slot] = System.currentTimeMillis();
+        ticks[slot] = tick;
+        types[slot] = type;
+        levels[slot] = level;
+        rows[slot] = row;
+        cols[slot] = col;
+        values[slot] = value;
+        details[slot] = detail;
+
+        // Publishing after the slot is filled makes the slot visible to the writer
+        nextEvent++;
+        published.lazySet(nextEvent);
+        return true;
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full
+     * @return The number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes events until the log is closed, then writes any events left
+     */
+    private void run() {
+        while (true) {
+            // Checked before writing, so events logged before closing are always written
+            boolean isClosing = isClosed;
+            if (drain() == 0) {
+                if (isClosing) {
+                    break;
+                }
+                LockSupport.parkNanos(idleWait);
+            }
+        }
+
+        try {
+            if (out != null) {
+                out.close();
+            }
+        }
+        catch (IOException e) {
+            stopWriting(e);
+        }
+    }
+
+    /**
+     * Writes every published event
+     * @return The number of events taken from the buffer
+     */
+    private int drain() {
+        long first = consumed.get();
+        long last = published.get();
+        for (long event = first; event < last; event++) {
+            int slot = (int)event & mask;
+            line.setLength(0);
+            line.append(times[slot]).append('\t').append(ticks[slot]).append('\t').append(types[slot]).append('\t')
+                .append(levels[slot]).append('\t').append(rows[slot]).append('\t').append(cols[slot]).append('\t')
+                .append(values[slot]).append('\t').append(details[slot] == null ? "-" : details[slot]).append('\n');
+            write(line);
+        }
+
+        // The slots can be reused once the events are copied out
+        consumed.lazySet(last);
+
+        long droppedNow = dropped.get();
+        if (droppedNow > droppedWritten) {
+            line.setLength(0);
+            line.append("# dropped\t").append(droppedNow - droppedWritten).append('\n');
+            write(line);
+            droppedWritten = droppedNow;
+        }
+
+        if (last > first && out != null) {
+            try {
+                out.flush();
+            }
+            catch (IOException e) {
+                stopWriting(e);
+            }
+        }
+        return (int)(last - first);
+    }
+
+    /**
+     * Writes a line to the current log file, starting a new file when it is full
+     * @param text The line
+     */
+    private void write(CharSequence text) {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.append(text);
+            fileBytes += text.length();
+            if (fileBytes >= maxFileBytes) {
+                rotate();
+            }
+        }
+        catch (IOException e) {
+            stopWriting(e);
+        }
+    }
+
+    /**
+     * Closes the current log file, renames the older files and starts a new file
+     * @throws IOException If the files could not be renamed or created
+     */
+    private void rotate() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+
+        // The oldest file is replaced by the one before it
+        Files.deleteIfExists(logFile(dir, maxFiles - 1));
+        for (int age = maxFiles - 2; age >= 0; age--) {
+            Path file = logFile(dir, age);
+            if (Files.exists(file)) {
+                Files.move(file, logFile(dir, age + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        out = Files.newBufferedWriter(logFile(dir, 0));
+        out.write(HEADER);
+        out.write('\n');
+        fileBytes = HEADER.length() + 1;
+    }
+
+    /**
+     * Stops writing after the log could not be written. Events are still taken from the buffer, so the game never waits
+     * @param e The error that stopped the log
+     */
+    private void stopWriting(IOException e) {
+        System.err.println("Event log stopped: " + e.getMessage());
+        out = null;
+    }
+
+    /**
+     * Writes any events left and closes the log file, waiting for the writer thread to finish
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
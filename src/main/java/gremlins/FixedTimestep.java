@@ -0,0 +1,53 @@
+package gremlins;
+
+/**
+ * Decides how many game ticks to run each frame so the game keeps the same pace at any frame rate
+ * Time passed since the last frame is collected, and a tick is run for every tick length of it. The time left over
+ * gives how far the game is between the last tick and the next one, so moving objects can be drawn part way along
+ */
+public class FixedTimestep {
+    private long tickLength;
+    private int maxTicksPerFrame;
+
+    // The time collected but not yet used by a tick, in nanoseconds
+    private long accumulated = 0;
+    private long lastTime;
+
+    /**
+     * The constructor for the FixedTimestep class
+     * @param ticksPerSecond The number of ticks run for every second that passes
+     * @param maxTicksPerFrame The most ticks run in a single frame (time beyond this is dropped, so the game slows down
+     *                         rather than freezing to catch up after a long pause)
+     * @param startTime The time the first frame is measured from, in nanoseconds
+     */
+    public FixedTimestep(int ticksPerSecond, int maxTicksPerFrame, long startTime) {
+        this.tickLength = 1000000000L / ticksPerSecond;
+        this.maxTicksPerFrame = maxTicksPerFrame;
+        this.lastTime = startTime;
+    }
+
+    /**
+     * Collects the time passed since the last frame
+     * @param time The time of the current frame, in nanoseconds
+     * @return The number of ticks to run in the current frame
+     */
+    public int advance(long time) {
+        accumulated += Math.max(time - lastTime, 0);
+        lastTime = time;
+
+        int ticks = (int)Math.min(accumulated / tickLength, maxTicksPerFrame);
+        accumulated -= ticks * tickLength;
+
+        // Whole ticks that could not be caught up on are dropped
+        accumulated %= tickLength;
+        return ticks;
+    }
+
+    /**
+     * Gets how far the game is between the last tick and the next one
+     * @return The fraction of a tick collected since the last tick, from 0 (inclusive) to 1 (exclusive)
+     */
+    public float getAlpha() {
+        return (float)accumulated / tickLength;
+    }
+}
@@ -0,0 +1,218 @@
+package gremlins;
+
+import java.util.Arrays;
+
+/**
+ * A map of the walking distance from every cell to the player, shared by every enemy chasing the player
+ * The distances are found with a breadth first search whenever the player changes tile or the map is rebuilt
+ * When a wall is removed, only the distances it shortens are updated, and chasing enemies pick their moves with a lookup
+ * The search stops at a maximum distance, so its cost depends on the range rather than the size of the map
+ */
+public class FlowField {
+    // The distance of cells that cannot reach the player
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // Cached since values() copies the array on every call
+    private static final Direction[] directions = Direction.values();
+
+    private TileGrid tileMap;
+    private int rows;
+    private int cols;
+    private int etherealness;
+    private int range;
+
+    private int[] distances;
+    private int[] queue = new int[64];
+
+    // Every cell given a distance, so only those cells are forgotten before the next search
+    private int[] reachedCells = new int[64];
+    private int reachedCount = 0;
+
+    // The cell and map generation the distances were last searched from
+    private int targetCell = -1;
+    private int generation = -1;
+
+    /**
+     * The constructor for the FlowField class. No distances are known until the first update
+     * @param tileMap The tile map the distances are measured over
+     * @param etherealness The highest level of wall the chasing enemies can pass through
+     * @param range The furthest walking distance searched (cells further away are treated as unreachable)
+     */
+    public FlowField(TileGrid tileMap, int etherealness, int range) {
+        this.tileMap = tileMap;
+        this.rows = tileMap.getRows();
+        this.cols = tileMap.getCols();
+        this.etherealness = etherealness;
+        this.range = range;
+
+        distances = new int[rows * cols];
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    /**
+     * Brings the distances up to date with the target's position and the tiles removed since the last update
+     * Should be called once per tick, after broken tiles have progressed
+     * @param row The row of the target's cell
+     * @param col The column of the target's cell
+     * @return true if the distances were searched from scratch (otherwise returns false)
+     */
+    public boolean update(int row, int col) {
+        int cell = row * cols + col;
+        if (cell != targetCell || generation != tileMap.getGeneration()) {
+            search(cell);
+            return true;
+        }
+
+        for (int i = 0; i < tileMap.getRemovedCount(); i++) {
+            open(tileMap.getRemovedCell(i));
+        }
+        return false;
+    }
+
+    /**
+     * Finds the distance from every cell to the target with a breadth first search
+     * @param cell The index of the target's cell
+     */
+    private void search(int cell) {
+        for (int i = 0; i < reachedCount; i++) {
+            distances[reachedCells[i]] = UNREACHABLE;
+        }
+        reachedCount = 0;
+        targetCell = cell;
+        generation = tileMap.getGeneration();
+
+        setDistance(cell, 0);
+        queue[0] = cell;
+        spread(1);
+    }
+
+    /**
+     * Gives a cell a shorter distance, remembering cells that had none
+     * @param cell The index of the cell
+     * @param distance The new distance
+     */
+    private void setDistance(int cell, int distance) {
+        if (distances[cell] == UNREACHABLE) {
+            if (reachedCount == reachedCells.length) {
+                reachedCells = Arrays.copyOf(reachedCells, reachedCount * 2);
+            }
+            reachedCells[reachedCount++] = cell;
+        }
+        distances[cell] = distance;
+    }
+
+    /**
+     * Updates the distances after the tile in a cell was removed
+     * Removing a tile can only shorten paths, so only cells that become closer are visited
+     * @param cell The index of the opened cell
+     */
+    private void open(int cell) {
+        if (!isPassable(cell)) {
+            return;
+        }
+
+        // The opened cell is one step further than its closest neighbour
+        int row = cell / cols;
+        int col = cell % cols;
+        int shortest = UNREACHABLE;
+        for (Direction direction : directions) {
+            int nextRow = row + direction.getY();
+            int nextCol = col + direction.getX();
+            if (tileMap.inBounds(nextRow, nextCol)) {
+                shortest = Math.min(shortest, distances[nextRow * cols + nextCol]);
+            }
+        }
+
+        if (shortest < range && shortest + 1 < distances[cell]) {
+            setDistance(cell, shortest + 1);
+            queue[0] = cell;
+            spread(1);
+        }
+    }
+
+    /**
+     * Spreads shorter distances outwards from the queued cells until no distance can be shortened
+     * @param tail The number of cells in the queue
+     */
+    private void spread(int tail) {
+        int head = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            int distance = distances[cell] + 1;
+            if (distance > range) {
+                continue;
+            }
+
+            for (Direction direction : directions) {
+                int nextRow = row + direction.getY();
+                int nextCol = col + direction.getX();
+                if (!tileMap.inBounds(nextRow, nextCol)) {
+                    continue;
+                }
+
+                int next = nextRow * cols + nextCol;
+                if (distance < distances[next] && isPassable(next)) {
+                    setDistance(next, distance);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, tail * 2);
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the chasing enemies can walk through a cell
+     * @param cell The index of the cell
+     * @return true if the cell can be entered (otherwise returns false)
+     */
+    private boolean isPassable(int cell) {
+        return MovingObject.canPassThrough(tileMap.getStrength(cell / cols, cell % cols), etherealness);
+    }
+
+    /**
+     * Gets the walking distance from a cell to the target
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The number of steps to the target (returns UNREACHABLE if the target cannot be reached within the range)
+     */
+    public int getDistance(int row, int col) {
+        return distances[row * cols + col];
+    }
+
+    /**
+     * Finds a step from a cell that brings an enemy one tile closer to the target
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @param preferred The direction taken if it is one of the closest steps (may be null)
+     * @return The direction of the step (returns null if the cell is the target or cannot reach it)
+     */
+    public Direction nextStep(int row, int col, Direction preferred) {
+        if (!tileMap.inBounds(row, col)) {
+            return null;
+        }
+
+        int distance = distances[row * cols + col];
+        if (distance == 0 || distance == UNREACHABLE) {
+            return null;
+        }
+
+        Direction step = null;
+        for (Direction direction : directions) {
+            int nextRow = row + direction.getY();
+            int nextCol = col + direction.getX();
+            if (tileMap.inBounds(nextRow, nextCol) && distances[nextRow * cols + nextCol] == distance - 1) {
+                if (direction == preferred) {
+                    return direction;
+                }
+                if (step == null) {
+                    step = direction;
+                }
+            }
+        }
+        return step;
+    }
+}
@@ -0,0 +1,26 @@
+package gremlins;
+
+/**
+ * Represents the parts of a frame timed by a FrameProfiler and their names in reports
+ */
+public enum FramePhase {
+
+    PROJECTILES ("progressProjectiles"),
+    BROKENTILES ("progressBrokenTiles"),
+    FLOWFIELD ("updateFlowField"),
+    TILEEVENT ("checkTileEvent"),
+    COLLISIONS ("manageCollisions"),
+    ENEMIES ("manageEnemies"),
+    PLAYER ("player update"),
+    TICK ("engine tick"),
+    MAP ("drawMap"),
+    LEVEL ("draw level"),
+    INFOBAR ("infoBar draws"),
+    FRAME ("frame");
+
+    public final String label;
+
+    private FramePhase(String label) {
+        this.label = label;
+    }
+}
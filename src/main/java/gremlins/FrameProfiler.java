@@ -0,0 +1,162 @@
+package gremlins;
+
+/**
+ * Times each phase of a frame and counts the entities in each tick, so slow frames can be traced to their cause
+ * Timings are kept in histograms allocated up front. A disabled profiler never reads the clock, so leaving the calls
+ * in place costs a field check per phase
+ * While a flight recording takes tick events, the phases are timed for the events even if the profiler is disabled
+ */
+public class FrameProfiler {
+    private static final FramePhase[] phases = FramePhase.values();
+
+    private boolean enabled;
+    private boolean timing;
+    private Histogram[] timings = new Histogram[phases.length];
+    private Histogram enemyCounts = new Histogram();
+    private Histogram projectileCounts = new Histogram();
+
+    // The time each phase took the last time it ran, in nanoseconds
+    private long[] lastTimes = new long[phases.length];
+
+    /**
+     * The constructor for the FrameProfiler class
+     * @param enabled Whether anything is recorded
+     */
+    public FrameProfiler(boolean enabled) {
+        this.enabled = enabled;
+        this.timing = enabled;
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Checks if the profiler records anything
+     * @return true if the profiler is enabled (otherwise returns false)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decides whether the phases of the next tick are timed
+     * @param isEventEnabled Whether a flight recording is taking tick events
+     */
+    public void beginTick(boolean isEventEnabled) {
+        timing = enabled || isEventEnabled;
+    }
+
+    /**
+     * Reads the clock at the start of the first timed phase
+     * @return The current time in nanoseconds (returns 0 if phases are not being timed)
+     */
+    public long start() {
+        return timing ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time taken by a phase that just finished
+     * The time returned can start the next phase, so phases run one after another only read the clock once each
+     * @param phase The phase that finished
+     * @param startTime The time the phase started, in nanoseconds
+     * @return The current time in nanoseconds (returns 0 if phases are not being timed)
+     */
+    public long lap(FramePhase phase, long startTime) {
+        if (!timing) {
+            return 0;
+        }
+        long time = System.nanoTime();
+        lastTimes[phase.ordinal()] = time - startTime;
+        if (enabled) {
+            timings[phase.ordinal()].record(time - startTime);
+        }
+        return time;
+    }
+
+    /**
+     * Gets the time a phase took the last time it was timed
+     * @param phase The phase
+     * @return The time in nanoseconds (returns 0 if the phase was never timed)
+     */
+    public long getLastTime(FramePhase phase) {
+        return lastTimes[phase.ordinal()];
+    }
+
+    /**
+     * Records the number of entities in a tick
+     * @param enemies The number of enemies in the level
+     * @param projectiles The number of projectiles in the level
+     */
+    public void countEntities(int enemies, int projectiles) {
+        if (enabled) {
+            enemyCounts.record(enemies);
+            projectileCounts.record(projectiles);
+        }
+    }
+
+    /**
+     * Gets the timings recorded for a phase
+     * @param phase The phase
+     * @return The histogram of the phase's times in nanoseconds
+     */
+    public Histogram getTimings(FramePhase phase) {
+        return timings[phase.ordinal()];
+    }
+
+    /**
+     * Gets the numbers of enemies recorded
+     * @return The histogram of the number of enemies in each tick
+     */
+    public Histogram getEnemyCounts() {
+        return enemyCounts;
+    }
+
+    /**
+     * Gets the numbers of projectiles recorded
+     * @return The histogram of the number of projectiles in each tick
+     */
+    public Histogram getProjectileCounts() {
+        return projectileCounts;
+    }
+
+    /**
+     * Forgets everything recorded so far
+     */
+    public void reset() {
+        for (Histogram histogram : timings) {
+            histogram.reset();
+        }
+        enemyCounts.reset();
+        projectileCounts.reset();
+    }
+
+    /**
+     * Describes everything recorded so far as a table, with times in microseconds
+     * @return The report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-20s %10s %10s %10s %10s%n", "phase", "count", "p50 us", "p99 us", "max us"));
+        for (FramePhase phase : phases) {
+            Histogram histogram = timings[phase.ordinal()];
+            report.append(String.format("%-20s %10d %10.1f %10.1f %10.1f%n", phase.label, histogram.getCount(),
+                histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3));
+        }
+
+        report.append(String.format("%-20s %10s %10s %10s %10s%n", "entities per tick", "count", "p50", "p99", "max"));
+        appendCounts(report, "enemies", enemyCounts);
+        appendCounts(report, "projectiles", projectileCounts);
+        return report.toString();
+    }
+
+    /**
+     * Adds a row describing a histogram of entity counts to a report
+     * @param report The report being written
+     * @param name The name of the row
+     * @param histogram The counts
+     */
+    private static void appendCounts(StringBuilder report, String name, Histogram histogram) {
+        report.append(String.format("%-20s %10d %10d %10d %10d%n", name, histogram.getCount(),
+            histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMax()));
+    }
+}
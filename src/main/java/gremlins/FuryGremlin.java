@@ -5,11 +5,12 @@ import processing.core.PImage;
 import java.util.Random;
 
 /**
- * The advanced enemies that shoot projectiles that break through walls and use a simple algorithm to chase the player
+ * The advanced enemies that shoot projectiles that break through walls and follow the shortest path to the player
  */
 public class FuryGremlin extends Enemy {
-    private static int speed = 2;
-    private static int etherealness = 0;
+    private static final int speed = 2;
+    // Shared with the level's flow field, which measures distances through the walls a fury can pass
+    static final int etherealness = 0;
 
     /**
      * The constructor for the FuryGremlin class
@@ -20,18 +21,19 @@ public class FuryGremlin extends Enemy {
      * @param rand The random number generator for the enemy
      * @param tileMap The tile map for the level where the enemy is placed
      */
-    public FuryGremlin(int xPos, int yPos, PImage[] spriteSet, Weapon weapon, Random rand, Tile[][] tileMap) {
+    public FuryGremlin(int xPos, int yPos, PImage[] spriteSet, Weapon weapon, Random rand, TileGrid tileMap) {
         super(xPos, yPos, spriteSet, speed, etherealness, weapon, rand, tileMap);
     }
 
     /**
      * Moves the enemy. Overriden to track down the player
+     * The enemy follows the level's flow field, falling back to heading straight for the player when no path exists
      * @param level The level the enemy exists in
      * @return true if the enemy can move (otherwise returns false)
      */
     @Override
     public boolean handleMovement(Level level) {
-        Tile[][] tileMap = level.getMap();
+        TileGrid tileMap = level.getMap();
         Player player = level.getPlayer();
 
         if (vector == null) {
@@ -45,6 +47,18 @@ public class FuryGremlin extends Enemy {
         Direction vector1 = Direction.fromVector(xSep, ySep);
         Direction vector2;
 
+        // Takes a step along the shortest path, preferring the direct heading when several are equally short
+        Direction step = level.getFlowField().nextStep(GameObject.pixelToGrid(yPos), GameObject.pixelToGrid(xPos), vector1);
+        if (step != null && validateMove(step, tileMap)) {
+            startMove(step);
+            return true;
+        }
+
+        // If the enemy shares the player's tile, there is no best direction so it keeps its current one
+        if (vector1 == null) {
+            vector1 = vector;
+        }
+
         // Finds the second best direction
         if (Math.abs(ySep) > Math.abs(xSep)) {
             vector2 = Direction.fromVector(xSep, 0);
@@ -0,0 +1,15 @@
+package gremlins;
+
+/**
+ * Represents the kinds of events written to the game's event log
+ */
+public enum GameEventType {
+    READY,
+    LEVEL,
+    EXIT,
+    END,
+    POWERUP,
+    DEATH,
+    KILL,
+    TELEPORT;
+}
@@ -0,0 +1,390 @@
+package gremlins;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes a running game through JMX, so it can be watched and controlled from JConsole
+ * JMX calls arrive on their own threads, so the game publishes its counters once per frame and collects requests
+ * (pausing, stepping, changing the frame rate and dumping the state) on its own thread
+ */
+public class GameMonitor implements GameMonitorMBean {
+    public static final String OBJECTNAME = "gremlins:type=GameMonitor";
+
+    // How long a state dump waits for the game's thread before giving up
+    private static final long dumpTimeout = 1000;
+
+    // Published by the game's thread every frame
+    private volatile double framesPerSecond = 0;
+    private volatile double ticksPerSecond = 0;
+    private volatile long tickCount = 0;
+    private volatile int enemyCount = 0;
+    private volatile int projectileCount = 0;
+    private volatile int destroyingTileCount = 0;
+    private volatile int levelNumber = 0;
+    private volatile int playerLives = 0;
+    private volatile long allocatedBytesPerFrame = -1;
+    private volatile double firstInteractiveMillis = -1;
+
+    // Requests from JMX, collected by the game's thread
+    private volatile boolean paused = false;
+    private AtomicInteger pendingSteps = new AtomicInteger();
+    private volatile int targetFramesPerSecond;
+    private volatile boolean isTargetChanged = false;
+    private Queue<CompletableFuture<String>> pendingDumps = new ConcurrentLinkedQueue<CompletableFuture<String>>();
+
+    // The frames counted since the rates were last measured, and the tick count and allocations when they were
+    private long windowStart = -1;
+    private int windowFrames = 0;
+    private long windowStartTick = 0;
+    private long windowStartBytes = 0;
+
+    private com.sun.management.ThreadMXBean allocationBean;
+
+    /**
+     * The constructor for the GameMonitor class
+     * @param targetFramesPerSecond The number of frames the window initially tries to draw each second
+     */
+    public GameMonitor(int targetFramesPerSecond) {
+        this.targetFramesPerSecond = targetFramesPerSecond;
+
+        // Allocation can only be measured on JVMs that support counting it per thread
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                allocationBean = bean;
+            }
+        }
+    }
+
+    /**
+     * Registers the monitor with the platform MBean server, replacing the monitor of any earlier game
+     * @return true if the monitor was registered (otherwise returns false)
+     */
+    public boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECTNAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return true;
+        }
+        catch (JMException e) {
+            System.err.println("Monitoring unavailable: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes the monitor from the platform MBean server
+     */
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECTNAME));
+        }
+        catch (JMException e) {
+            // Another game's monitor replaced this one, or it was never registered
+        }
+    }
+
+    /**
+     * Publishes the game's counters and answers waiting state dumps. Called by the game's thread once per frame
+     * @param engine The running game
+     * @param time The time of the frame, in nanoseconds
+     */
+    public void update(Engine engine, long time) {
+        Level level = engine.getLevel();
+        tickCount = engine.getTickCount();
+        enemyCount = level.getEnemies().size();
+        projectileCount = level.getProjectiles().size();
+        destroyingTileCount = level.getMap().getDestroyingCount();
+        levelNumber = engine.getLevelNumber();
+        playerLives = engine.getPlayer().getLives();
+
+        // The rates are measured once a second
+        long bytes = allocatedBytes();
+        if (windowStart < 0) {
+            windowStart = time;
+            windowStartTick = tickCount;
+            windowStartBytes = bytes;
+        }
+        windowFrames++;
+        long elapsed = time - windowStart;
+        if (elapsed >= 1000000000L) {
+            framesPerSecond = windowFrames * 1e9 / elapsed;
+            ticksPerSecond = Math.max(tickCount - windowStartTick, 0) * 1e9 / elapsed;
+            if (allocationBean != null) {
+                allocatedBytesPerFrame = (bytes - windowStartBytes) / windowFrames;
+            }
+            windowStart = time;
+            windowStartTick = tickCount;
+            windowStartBytes = bytes;
+            windowFrames = 0;
+        }
+
+        CompletableFuture<String> dump;
+        while ((dump = pendingDumps.poll()) != null) {
+            dump.complete(describe(engine));
+        }
+    }
+
+    /**
+     * Publishes how long the game took to become playable. Called by the game's thread once, on the first playable frame
+     * @param time The time from launch until the frame, in nanoseconds
+     */
+    public void recordFirstInteractiveFrame(long time) {
+        firstInteractiveMillis = time / 1e6;
+    }
+
+    /**
+     * Reads the number of bytes the current thread has allocated
+     * @return The number of bytes (returns 0 if the JVM cannot measure it)
+     */
+    private long allocatedBytes() {
+        return allocationBean == null ? 0 : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Decides how many ticks the game runs this frame, holding it still while paused
+     * Called by the game's thread once per frame
+     * @param ticks The number of ticks the time since the last frame covers
+     * @return The number of ticks to run
+     */
+    public int takeTicks(int ticks) {
+        if (!paused) {
+            return ticks;
+        }
+
+        // A paused game only advances by the steps asked for, one per frame
+        // The step is taken in a single update, so a resume clearing the steps at the same time never leaves the count negative
+        if (pendingSteps.getAndUpdate(steps -> steps > 0 ? steps - 1 : 0) > 0) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Takes a change of the target frame rate asked for since the last frame
+     * Called by the game's thread once per frame
+     * @return The new target frame rate (returns 0 if it did not change)
+     */
+    public int takeTargetFramesPerSecond() {
+        if (!isTargetChanged) {
+            return 0;
+        }
+        isTargetChanged = false;
+        return targetFramesPerSecond;
+    }
+
+    /**
+     * Describes the state of a game
+     * @param engine The game
+     * @return The level, player, enemies and projectiles, and the state's checksum
+     */
+    public static String describe(Engine engine) {
+        Level level = engine.getLevel();
+        Player player = engine.getPlayer();
+        StringBuilder state = new StringBuilder();
+
+        state.append(String.format("Level %d of %d (%s), tick %d%n", engine.getLevelNumber(), engine.getLevelCount(),
+            engine.isGameActive() ? "active" : engine.isGameWon() ? "won" : "lost", engine.getTickCount()));
+        state.append(String.format("Player at row %d, column %d with %d lives%n",
+            GameObject.pixelToGrid(player.getY()), GameObject.pixelToGrid(player.getX()), player.getLives()));
+        for (Powerup powerup : player.getPowerups()) {
+            if (powerup.isActive()) {
+                state.append(String.format("  Active powerup %s%n", powerup.getPowerupType()));
+            }
+        }
+
+        List<Enemy> enemies = level.getEnemies();
+        state.append(String.format("Enemies: %d%n", enemies.size()));
+        for (Enemy enemy : enemies) {
+            state.append(String.format("  %s at (%d, %d) moving %s%n", enemy.getClass().getSimpleName(), enemy.getX(), enemy.getY(), enemy.getVector()));
+        }
+
+        state.append(String.format("Projectiles: %d%n", level.getProjectiles().size()));
+        state.append(String.format("Tiles being destroyed: %d%n", level.getMap().getDestroyingCount()));
+        state.append(String.format("State checksum: %016x%n", StateChecksum.of(engine)));
+        return state.toString();
+    }
+
+    /**
+     * Gets the number of frames drawn per second, measured over the last second
+     * @return The frame rate
+     */
+    @Override
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * Gets the number of game ticks run per second, measured over the last second
+     * @return The tick rate
+     */
+    @Override
+    public double getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Gets the number of ticks run since the game started
+     * @return The tick count
+     */
+    @Override
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the number of enemies in the current level
+     * @return The number of enemies
+     */
+    @Override
+    public int getEnemyCount() {
+        return enemyCount;
+    }
+
+    /**
+     * Gets the number of projectiles in the current level
+     * @return The number of projectiles
+     */
+    @Override
+    public int getProjectileCount() {
+        return projectileCount;
+    }
+
+    /**
+     * Gets the number of tiles part way through being destroyed
+     * @return The number of tiles being destroyed
+     */
+    @Override
+    public int getDestroyingTileCount() {
+        return destroyingTileCount;
+    }
+
+    /**
+     * Gets the number of the current level
+     * @return The level number (starting from 1)
+     */
+    @Override
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Gets the player's remaining lives
+     * @return The number of lives
+     */
+    @Override
+    public int getPlayerLives() {
+        return playerLives;
+    }
+
+    /**
+     * Gets the heap allocated by the game's thread per frame, averaged over the last second
+     * @return The number of bytes per frame (returns -1 if the JVM cannot measure it)
+     */
+    @Override
+    public long getAllocatedBytesPerFrame() {
+        return allocatedBytesPerFrame;
+    }
+
+    /**
+     * Gets how long it took from launch until the first frame the game could be played in
+     * @return The time in milliseconds (returns -1 if the game has not been playable yet)
+     */
+    @Override
+    public double getFirstInteractiveMillis() {
+        return firstInteractiveMillis;
+    }
+
+    /**
+     * Gets the number of frames the window tries to draw each second
+     * @return The target frame rate
+     */
+    @Override
+    public int getTargetFramesPerSecond() {
+        return targetFramesPerSecond;
+    }
+
+    /**
+     * Changes the number of frames the window tries to draw each second, from the next frame
+     * @param framesPerSecond The new target frame rate (must be positive)
+     */
+    @Override
+    public void setTargetFramesPerSecond(int framesPerSecond) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("The frame rate must be positive");
+        }
+        targetFramesPerSecond = framesPerSecond;
+        isTargetChanged = true;
+    }
+
+    /**
+     * Checks if the game is paused
+     * @return true if the game is paused (otherwise returns false)
+     */
+    @Override
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Stops the game from advancing from the next frame
+     */
+    @Override
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Lets a paused game advance again, forgetting any steps not yet taken
+     */
+    @Override
+    public void resume() {
+        pendingSteps.set(0);
+        paused = false;
+    }
+
+    /**
+     * Advances a paused game by a single tick on the next frame without a step
+     */
+    @Override
+    public void step() {
+        if (paused) {
+            pendingSteps.incrementAndGet();
+        }
+    }
+
+    /**
+     * Describes the current state of the game, waiting for the game's thread to read it
+     * @return The description of the state (or a message if the game did not respond in time)
+     */
+    @Override
+    public String dumpState() {
+        CompletableFuture<String> dump = new CompletableFuture<String>();
+        pendingDumps.add(dump);
+        try {
+            return dump.get(dumpTimeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException | ExecutionException | TimeoutException e) {
+            pendingDumps.remove(dump);
+            return "The game did not respond";
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package gremlins;
+
+/**
+ * The management interface of a running game, shown in JMX consoles such as JConsole
+ */
+public interface GameMonitorMBean {
+    /**
+     * Gets the number of frames drawn per second, measured over the last second
+     * @return The frame rate
+     */
+    double getFramesPerSecond();
+
+    /**
+     * Gets the number of game ticks run per second, measured over the last second
+     * @return The tick rate
+     */
+    double getTicksPerSecond();
+
+    /**
+     * Gets the number of ticks run since the game started
+     * @return The tick count
+     */
+    long getTickCount();
+
+    /**
+     * Gets the number of enemies in the current level
+     * @return The number of enemies
+     */
+    int getEnemyCount();
+
+    /**
+     * Gets the number of projectiles in the current level
+     * @return The number of projectiles
+     */
+    int getProjectileCount();
+
+    /**
+     * Gets the number of tiles part way through being destroyed
+     * @return The number of tiles being destroyed
+     */
+    int getDestroyingTileCount();
+
+    /**
+     * Gets the number of the current level
+     * @return The level number (starting from 1)
+     */
+    int getLevelNumber();
+
+    /**
+     * Gets the player's remaining lives
+     * @return The number of lives
+     */
+    int getPlayerLives();
+
+    /**
+     * Gets the heap allocated by the game's thread per frame, averaged over the last second
+     * @return The number of bytes per frame (returns -1 if the JVM cannot measure it)
+     */
+    long getAllocatedBytesPerFrame();
+
+    /**
+     * Gets how long it took from launch until the first frame the game could be played in
+     * @return The time in milliseconds (returns -1 if the game has not been playable yet)
+     */
+    double getFirstInteractiveMillis();
+
+    /**
+     * Gets the number of frames the window tries to draw each second
+     * @return The target frame rate
+     */
+    int getTargetFramesPerSecond();
+
+    /**
+     * Changes the number of frames the window tries to draw each second. The game's pace is unaffected
+     * @param framesPerSecond The new target frame rate
+     */
+    void setTargetFramesPerSecond(int framesPerSecond);
+
+    /**
+     * Checks if the game is paused
+     * @return true if the game is paused (otherwise returns false)
+     */
+    boolean isPaused();
+
+    /**
+     * Stops the game from advancing. The window keeps drawing the current state
+     */
+    void pause();
+
+    /**
+     * Lets a paused game advance again
+     */
+    void resume();
+
+    /**
+     * Advances a paused game by a single tick
+     */
+    void step();
+
+    /**
+     * Describes the current state of the game
+     * @return The level, player, enemies and projectiles, and the state's checksum
+     */
+    String dumpState();
+}
@@ -12,7 +12,7 @@ public abstract class GameObject {
 
     private PImage sprite;
     private PImage[] spriteSet;
-    private static int spriteSize = App.SPRITESIZE;
+    private static final int spriteSize = App.SPRITESIZE;
 
     /**
      * The constructor for the GameObject class
@@ -43,6 +43,14 @@ public abstract class GameObject {
         return yPos;
     }
 
+    /**
+     * Gets the current sprite of the object
+     * @return The sprite being displayed (returns null when running without images)
+     */
+    public PImage getSprite() {
+        return sprite;
+    }
+
     /**
      * Changes the sprite of the object
      * @param spriteId The id of the new sprite in the sprite set
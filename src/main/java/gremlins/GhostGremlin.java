@@ -8,8 +8,8 @@ import java.util.Random;
  * The advanced enemies that move through bricks and shoot projectiles that travel through bricks
  */
 public class GhostGremlin extends Enemy {
-    private static int speed = 1;
-    private static int etherealness = 1;
+    private static final int speed = 1;
+    private static final int etherealness = 1;
 
     /**
      * The constructor for the GhostGremlin class
@@ -20,7 +20,7 @@ public class GhostGremlin extends Enemy {
      * @param rand The random number generator for the enemy
      * @param tileMap The tile map for the level where the enemy is placed
      */
-    public GhostGremlin(int xPos, int yPos, PImage[] spriteSet, Weapon weapon, Random rand, Tile[][] tileMap) {
+    public GhostGremlin(int xPos, int yPos, PImage[] spriteSet, Weapon weapon, Random rand, TileGrid tileMap) {
         super(xPos, yPos, spriteSet, speed, etherealness, weapon, rand, tileMap);
     }
 }
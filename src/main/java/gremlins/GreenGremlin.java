@@ -8,8 +8,8 @@ import java.util.Random;
  * The most basic type of enemy
  */
 public class GreenGremlin extends Enemy {
-    private static int speed = 1;
-    private static int etherealness = 0;
+    private static final int speed = 1;
+    private static final int etherealness = 0;
 
     /**
      * The constructor for the GreenGremlin class
@@ -20,7 +20,7 @@ public class GreenGremlin extends Enemy {
      * @param rand The random number generator for the enemy
      * @param tileMap The tile map for the level where the enemy is placed
      */
-    public GreenGremlin(int xPos, int yPos, PImage[] spriteSet, Weapon weapon, Random rand, Tile[][] tileMap) {
+    public GreenGremlin(int xPos, int yPos, PImage[] spriteSet, Weapon weapon, Random rand, TileGrid tileMap) {
         super(xPos, yPos, spriteSet, speed, etherealness, weapon, rand, tileMap);
     }
 }
@@ -0,0 +1,47 @@
+package gremlins;
+
+import java.util.Random;
+
+/**
+ * Runs the game engine without rendering as fast as possible and reports the simulation throughput
+ */
+public class HeadlessRunner {
+    public static final int DEFAULTTICKS = 1000000;
+
+    /**
+     * The constructor for the HeadlessRunner class
+     */
+    private HeadlessRunner() {}
+
+    /**
+     * Starts the headless run
+     * @param args The number of ticks to simulate followed by the random seed (both optional)
+     */
+    public static void main(String[] args) {
+        int ticks = DEFAULTTICKS;
+        long seed = System.nanoTime();
+        if (args.length > 0) {
+            ticks = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            seed = Long.parseLong(args[1]);
+        }
+
+        Engine engine = new Engine(Engine.loadConfig(App.configPath), Sprites.headless(), new Random(seed));
+        Input input = new Input();
+
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            // A finished game is restarted so every tick simulates a level
+            if (!engine.step(input)) {
+                engine.reset();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d ticks in %.3f s (%.0f ticks per second)%n", ticks, elapsed / 1e9, ticks / (elapsed / 1e9));
+        if (engine.getProfiler().isEnabled()) {
+            System.out.print(engine.getProfiler().report());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package gremlins;
+
+import java.util.Arrays;
+
+/**
+ * Counts recorded values in buckets that grow with the size of the value, keeping every percentile within about 3%
+ * Values below 64 have a bucket each, and every doubling above that is split into 32 buckets
+ * The buckets are allocated up front, so recording a value never allocates
+ */
+public class Histogram {
+    // Values up to 2^40 (about 18 minutes in nanoseconds) are told apart, larger values share the last bucket
+    private static final int subBuckets = 32;
+    private static final int highestBit = 40;
+    private static final long largestValue = (1L << highestBit + 1) - 1;
+
+    private long[] counts = new long[bucketOf(largestValue) + 1];
+    private long count = 0;
+    private long max = 0;
+
+    /**
+     * The constructor for the Histogram class
+     */
+    public Histogram() {}
+
+    /**
+     * Finds the bucket a value is counted in
+     * @param value The value (must not be negative)
+     * @return The index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < 2 * subBuckets) {
+            return (int)value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return shift * subBuckets + (int)(value >>> shift);
+    }
+
+    /**
+     * Finds the largest value counted in a bucket
+     * @param bucket The index of the bucket
+     * @return The largest value in the bucket
+     */
+    private static long highestIn(int bucket) {
+        if (bucket < 2 * subBuckets) {
+            return bucket;
+        }
+        int shift = bucket / subBuckets - 1;
+        long lowest = (long)(bucket - shift * subBuckets) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a value
+     * @param value The value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        value = Math.min(Math.max(value, 0), largestValue);
+        counts[bucketOf(value)]++;
+        count++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Gets the number of values recorded
+     * @return The number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the largest value recorded
+     * @return The largest value (returns 0 if nothing was recorded)
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Finds the value that a percentage of the recorded values are no larger than
+     * @param percentile The percentage of values, from 0 to 100
+     * @return The highest value in the bucket holding the percentile, no larger than the largest value recorded (returns 0 if nothing was recorded)
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        // The rank of the value, counting from 1
+        long rank = Math.max((long)Math.ceil(percentile / 100 * count), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestIn(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forgets every recorded value
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+    }
+}
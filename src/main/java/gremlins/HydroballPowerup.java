@@ -10,8 +10,8 @@ import java.util.Random;
 public class HydroballPowerup extends Powerup {
     private char weaponChar;
     private Weapon weapon;
-    private static int powerupCooldown = 10;
-    private static int availabilityCooldown = 20;
+    private static final int powerupCooldown = 10;
+    private static final int availabilityCooldown = 20;
 
     /**
      * The constructor for the HydroballPowerup class
@@ -28,6 +28,15 @@ public class HydroballPowerup extends Powerup {
         this.weapon = weapon;
     }
 
+    /**
+     * Returns the powerup to the state it was created in, including the cooldown of the weapon it gives
+     */
+    @Override
+    public void restore() {
+        super.restore();
+        weapon.resetCooldown();
+    }
+
     /**
      * Activates the powerup
      * @param level The level that the powerup exists in
@@ -1,14 +1,16 @@
 package gremlins;
 
+import processing.core.PConstants;
+import processing.core.PGraphics;
 import processing.core.PImage;
 import processing.core.PFont;
 
 import java.util.Map;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * The region of the application that displays information about the game
+ * Text is rendered into a layer that is only redrawn when a displayed value changes, so drawing the InfoBar does not allocate
  */
 public class InfoBar {
     public static final int xPos = 0;
@@ -37,6 +39,20 @@ public class InfoBar {
 
     private PImage playerImage;
     private App app;
+    private PFont font;
+    private PGraphics textLayer;
+
+    // The values currently shown in the text layer (-1 if nothing is shown)
+    private int shownLives = -1;
+    private int shownLevel = -1;
+    private int shownTotalLevels = -1;
+    private int shownThunderballTenths = -1;
+    private int shownHydroballTenths = -1;
+
+    private String levelText = "";
+    private String thunderballText = "";
+    private String hydroballText = "";
+    private boolean isChanged = true;
 
     /**
      * The constructor for the InfoBar class
@@ -44,59 +60,91 @@ public class InfoBar {
      * @param playerImage The sprite of the player used to display lives
      */
     public InfoBar(App app, PImage playerImage) {
+        this(app, playerImage, app.createFont("Arial", App.SPRITESIZE));
+    }
+
+    /**
+     * The constructor for the InfoBar class reusing an existing font
+     * @param app The application that the InfoBar exists in
+     * @param playerImage The sprite of the player used to display lives
+     * @param font The font of the InfoBar's text
+     */
+    private InfoBar(App app, PImage playerImage, PFont font) {
         this.playerImage = playerImage;
         this.app = app;
+        this.font = font;
 
-        app.textAlign(App.LEFT);
-        PFont font = app.createFont("Arial", App.SPRITESIZE);
-        app.textFont(font, App.SPRITESIZE);
+        textLayer = app.createGraphics(width, height);
     }
     
     /**
-     * Displays the player's lives pictographically in the InfoBar
+     * Updates the player's lives displayed pictographically in the InfoBar
      * @param lives The number of remaining lives the player has
      */
     public void displayLives(int lives) {
-        app.text(livesText, xPos + livesTextOffsetX, yPos + livesTextOffsetY);
-
-        for (int life = 0; life < lives; life++) {
-            app.image(playerImage, xPos + livesOffsetX + life * App.SPRITESIZE, yPos + livesOffsetY);
+        if (lives != shownLives) {
+            shownLives = lives;
+            isChanged = true;
         }
     }
 
     /**
-     * Display's the current level as text in the InfoBar
+     * Updates the current level displayed as text in the InfoBar
      * @param levelNumber The current level number
      * @param totalLevels The total levels available
      */
     public void displayLevel(int levelNumber, int totalLevels) {
-        String levelText = "Level: " + levelNumber + " / " + totalLevels;
-        app.text(levelText, xPos + levelTextOffsetX, yPos + levelTextOffsetY);
+        if (levelNumber != shownLevel || totalLevels != shownTotalLevels) {
+            shownLevel = levelNumber;
+            shownTotalLevels = totalLevels;
+            levelText = "Level: " + levelNumber + " / " + totalLevels;
+            isChanged = true;
+        }
     }
 
     /**
-     * Displays instructions for using player's current powerups and their cooldowns
+     * Updates the instructions for using player's current powerups and their cooldowns
+     * Cooldowns are shown to a tenth of a second, so the text only changes every few frames
      * @param powerupList The list of the player's powerups
      */
     public void displayPowerups(List<Powerup> powerupList) {
-        for (Powerup powerup : powerupList) {
+        int thunderballTenths = -1;
+        int hydroballTenths = -1;
+
+        for (int i = 0; i < powerupList.size(); i++) {
+            Powerup powerup = powerupList.get(i);
+
             // Only displays instructions if the player's powerup is active
             if (powerup.isActive()) {
+                int tenths = (int)Math.round(powerup.getCooldownTimer() * 10);
 
                 // Instructions vary based on the current active powerups
                 switch (powerup.getPowerupType()) {
-                    case THUNDERBALLPOWERUP: 
-                        app.fill(252,236,113);
-                        app.text(String.format("Press A to shoot a thunderball  %.1f", powerup.getCooldownTimer()), xPos + cooldownOffsetX, yPos + cooldownOffsetY);
+                    case THUNDERBALLPOWERUP:
+                        thunderballTenths = tenths;
                         break;
-                    
+
                     case HYDROBALLPOWERUP:
-                        app.fill(176,252,252);
-                        app.text(String.format("Press S to shoot a hydroball     %.1f", powerup.getCooldownTimer()), xPos + cooldownOffsetX, yPos + cooldownOffsetY + cooldownSepY);    
+                        hydroballTenths = tenths;
                         break;
                 }
             }
-        } 
+        }
+
+        if (thunderballTenths != shownThunderballTenths) {
+            shownThunderballTenths = thunderballTenths;
+            if (thunderballTenths >= 0) {
+                thunderballText = String.format("Press A to shoot a thunderball  %.1f", thunderballTenths / 10.0);
+            }
+            isChanged = true;
+        }
+        if (hydroballTenths != shownHydroballTenths) {
+            shownHydroballTenths = hydroballTenths;
+            if (hydroballTenths >= 0) {
+                hydroballText = String.format("Press S to shoot a hydroball     %.1f", hydroballTenths / 10.0);
+            }
+            isChanged = true;
+        }
     }
 
     /**
@@ -104,9 +152,12 @@ public class InfoBar {
      * @param weapons The map of the player's weapons
      */
     public void displayMana(Map<Character, Weapon> weapons) {
-        List<Weapon> weaponList = new ArrayList<Weapon>(weapons.values());
+        for (int i = 0; i < App.weaponChars.length; i++) {
+            Weapon weapon = weapons.get(App.weaponChars[i]);
+            if (weapon == null) {
+                continue;
+            }
 
-        for (Weapon weapon : weaponList) {
             double cooldown = weapon.getCurrentCooldown();
 
             // Only shows the bar if there is an active cooldown
@@ -140,11 +191,60 @@ public class InfoBar {
         }
     }
 
+    /**
+     * Draws the lives, level and powerup instructions into the application, re-rendering them only if they changed
+     */
+    public void draw() {
+        if (isChanged) {
+            renderTextLayer();
+            isChanged = false;
+        }
+
+        app.image(textLayer, xPos, yPos);
+    }
+
+    /**
+     * Renders the lives, level and powerup instructions into the text layer
+     */
+    private void renderTextLayer() {
+        textLayer.beginDraw();
+        textLayer.clear();
+        textLayer.textAlign(PConstants.LEFT);
+        textLayer.textFont(font, App.SPRITESIZE);
+
+        textLayer.fill(255);
+        textLayer.text(livesText, livesTextOffsetX, livesTextOffsetY);
+        for (int life = 0; life < shownLives; life++) {
+            textLayer.image(playerImage, livesOffsetX + life * App.SPRITESIZE, livesOffsetY);
+        }
+
+        textLayer.text(levelText, levelTextOffsetX, levelTextOffsetY);
+
+        if (shownThunderballTenths >= 0) {
+            textLayer.fill(252,236,113);
+            textLayer.text(thunderballText, cooldownOffsetX, cooldownOffsetY);
+        }
+        if (shownHydroballTenths >= 0) {
+            textLayer.fill(176,252,252);
+            textLayer.text(hydroballText, cooldownOffsetX, cooldownOffsetY + cooldownSepY);
+        }
+
+        textLayer.endDraw();
+    }
+
+    /**
+     * Checks if the text layer needs to be re-rendered
+     * @return true if a displayed value changed since the InfoBar was last drawn (otherwise returns false)
+     */
+    public boolean isChanged() {
+        return isChanged;
+    }
+
     /**
      * Creates a duplicate of the current InfoBar
      * @return A copy of the InfoBar
      */
     public InfoBar copy() {
-        return new InfoBar(app, playerImage);
+        return new InfoBar(app, playerImage, font);
     }
 }
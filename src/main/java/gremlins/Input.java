@@ -0,0 +1,97 @@
+package gremlins;
+
+/**
+ * The player's input for a single tick of the game
+ */
+public class Input {
+    private boolean rightPressed = false;
+    private boolean leftPressed = false;
+    private boolean upPressed = false;
+    private boolean downPressed = false;
+    private Character charPressed;
+
+    /**
+     * The constructor for the Input class
+     */
+    public Input() {}
+
+    /**
+     * Checks if the right-arrow key is pressed
+     * @return true if the right-arrow key is pressed (otherwise returns false)
+     */
+    public boolean isRightPressed() {
+        return rightPressed;
+    }
+
+    /**
+     * Checks if the left-arrow key is pressed
+     * @return true if the left-arrow key is pressed (otherwise returns false)
+     */
+    public boolean isLeftPressed() {
+        return leftPressed;
+    }
+
+    /**
+     * Checks if the up-arrow key is pressed
+     * @return true if the up-arrow key is pressed (otherwise returns false)
+     */
+    public boolean isUpPressed() {
+        return upPressed;
+    }
+
+    /**
+     * Checks if the down-arrow key is pressed
+     * @return true if the down-arrow key is pressed (otherwise returns false)
+     */
+    public boolean isDownPressed() {
+        return downPressed;
+    }
+
+    /**
+     * Gets the character of the weapon being fired
+     * @return The weapon character (returns null if no weapon is being fired)
+     */
+    public Character getCharPressed() {
+        return charPressed;
+    }
+
+    /**
+     * Sets the state of the right-arrow key
+     * @param pressed true if the key is pressed
+     */
+    public void setRightPressed(boolean pressed) {
+        rightPressed = pressed;
+    }
+
+    /**
+     * Sets the state of the left-arrow key
+     * @param pressed true if the key is pressed
+     */
+    public void setLeftPressed(boolean pressed) {
+        leftPressed = pressed;
+    }
+
+    /**
+     * Sets the state of the up-arrow key
+     * @param pressed true if the key is pressed
+     */
+    public void setUpPressed(boolean pressed) {
+        upPressed = pressed;
+    }
+
+    /**
+     * Sets the state of the down-arrow key
+     * @param pressed true if the key is pressed
+     */
+    public void setDownPressed(boolean pressed) {
+        downPressed = pressed;
+    }
+
+    /**
+     * Sets the character of the weapon being fired
+     * @param c The weapon character (null if no weapon is being fired)
+     */
+    public void setCharPressed(Character c) {
+        charPressed = c;
+    }
+}
@@ -0,0 +1,148 @@
+package gremlins;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the random seed of a game and the player's input for every tick, so the game can be replayed exactly
+ * The log starts with a header, then holds a single byte per tick. The file is only ever appended to
+ */
+public class InputRecorder implements Closeable {
+    // Recordings start with the bytes "GRL" followed by the format version
+    public static final int MAGIC = 0x47524C01;
+
+    // Bits of a tick's byte. The two bits above the directions hold the weapon (0 when no weapon is fired)
+    public static final int RIGHTBIT = 1;
+    public static final int LEFTBIT = 1 << 1;
+    public static final int UPBIT = 1 << 2;
+    public static final int DOWNBIT = 1 << 3;
+    public static final int WEAPONSHIFT = 4;
+    public static final int WEAPONMASK = 0b11 << WEAPONSHIFT;
+
+    // Written between ticks when a finished game is restarted
+    public static final byte RESETMARKER = (byte)0x80;
+
+    private DataOutputStream out;
+    private long ticks = 0;
+
+    /**
+     * The constructor for the InputRecorder class. Writes the header immediately
+     * @param out The stream the recording is written to
+     * @param seed The seed of the game's random number generator
+     * @throws IOException If the header could not be written
+     */
+    public InputRecorder(OutputStream out, long seed) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeLong(seed);
+    }
+
+    /**
+     * Creates a new recording file
+     * @param file The path of the recording
+     * @param seed The seed of the game's random number generator
+     * @return The recorder writing to the file
+     * @throws IOException If the file could not be created
+     */
+    public static InputRecorder open(Path file, long seed) throws IOException {
+        return new InputRecorder(Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), seed);
+    }
+
+    /**
+     * Packs the input for a tick into a single byte
+     * @param input The player's input
+     * @return The packed input
+     */
+    public static byte encode(Input input) {
+        int packed = 0;
+        if (input.isRightPressed()) {
+            packed |= RIGHTBIT;
+        }
+        if (input.isLeftPressed()) {
+            packed |= LEFTBIT;
+        }
+        if (input.isUpPressed()) {
+            packed |= UPBIT;
+        }
+        if (input.isDownPressed()) {
+            packed |= DOWNBIT;
+        }
+
+        // The weapon is stored as its position in App.weaponChars, plus one
+        Character c = input.getCharPressed();
+        if (c != null) {
+            for (int i = 0; i < App.weaponChars.length; i++) {
+                if (App.weaponChars[i].equals(c)) {
+                    packed |= (i + 1) << WEAPONSHIFT;
+                    break;
+                }
+            }
+        }
+
+        return (byte)packed;
+    }
+
+    /**
+     * Unpacks the input for a tick
+     * @param packed The packed input
+     * @param input The input that is set to the unpacked values
+     */
+    public static void decode(byte packed, Input input) {
+        input.setRightPressed((packed & RIGHTBIT) != 0);
+        input.setLeftPressed((packed & LEFTBIT) != 0);
+        input.setUpPressed((packed & UPBIT) != 0);
+        input.setDownPressed((packed & DOWNBIT) != 0);
+
+        int weapon = (packed & WEAPONMASK) >> WEAPONSHIFT;
+        input.setCharPressed(weapon == 0 ? null : App.weaponChars[weapon - 1]);
+    }
+
+    /**
+     * Records the input of a tick
+     * @param input The input given to the engine for the tick
+     * @throws IOException If the input could not be written
+     */
+    public void record(Input input) throws IOException {
+        out.writeByte(encode(input));
+        ticks++;
+    }
+
+    /**
+     * Records that a finished game was restarted
+     * @throws IOException If the marker could not be written
+     */
+    public void recordReset() throws IOException {
+        out.writeByte(RESETMARKER);
+    }
+
+    /**
+     * Gets the number of ticks recorded
+     * @return The number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Writes any buffered ticks to the file
+     * @throws IOException If the ticks could not be written
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes any buffered ticks and closes the file
+     * @throws IOException If the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
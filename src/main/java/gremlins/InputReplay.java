@@ -0,0 +1,123 @@
+package gremlins;
+
+import processing.data.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Replays a recording made by InputRecorder, feeding an engine the same inputs it was given
+ * An engine created from the recording's seed reproduces the recorded game exactly
+ */
+public class InputReplay {
+    private long seed;
+    private byte[] ticks;
+    private int position = 0;
+    private long tick = 0;
+
+    /**
+     * The constructor for the InputReplay class
+     * @param recording The contents of the recording
+     * @throws IllegalArgumentException If the data is not a recording
+     */
+    public InputReplay(byte[] recording) {
+        ByteBuffer buffer = ByteBuffer.wrap(recording);
+        if (buffer.remaining() < Integer.BYTES + Long.BYTES || buffer.getInt() != InputRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a recording");
+        }
+
+        seed = buffer.getLong();
+        ticks = new byte[buffer.remaining()];
+        buffer.get(ticks);
+    }
+
+    /**
+     * Reads a recording file
+     * @param file The path of the recording
+     * @return The replay of the recording
+     * @throws IOException If the file could not be read
+     */
+    public static InputReplay load(Path file) throws IOException {
+        return new InputReplay(Files.readAllBytes(file));
+    }
+
+    /**
+     * Gets the seed of the recorded game's random number generator
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Creates an engine in the same state the recorded game started in
+     * @param config The game configuration the recording was made with
+     * @param sprites The sprites given to the objects in the game
+     * @return The engine for the replay
+     */
+    public Engine createEngine(JSONObject config, Sprites sprites) {
+        return new Engine(config, sprites, new Random(seed));
+    }
+
+    /**
+     * Advances the engine by the next recorded tick, restarting the game first if the recording restarted it
+     * @param engine The engine created for the replay
+     * @param input The input that is set to the recorded input and given to the engine
+     * @return false if the recording has ended (otherwise returns true)
+     */
+    public boolean step(Engine engine, Input input) {
+        while (position < ticks.length && ticks[position] == InputRecorder.RESETMARKER) {
+            engine.reset();
+            position++;
+        }
+        if (position >= ticks.length) {
+            return false;
+        }
+
+        InputRecorder.decode(ticks[position++], input);
+        engine.step(input);
+        tick++;
+        return true;
+    }
+
+    /**
+     * Reads the next recorded input without advancing an engine. Restarts in the recording are skipped
+     * @param input The input that is set to the recorded input
+     * @return false if the recording has ended (otherwise returns true)
+     */
+    public boolean readInput(Input input) {
+        while (position < ticks.length && ticks[position] == InputRecorder.RESETMARKER) {
+            position++;
+        }
+        if (position >= ticks.length) {
+            return false;
+        }
+
+        InputRecorder.decode(ticks[position++], input);
+        tick++;
+        return true;
+    }
+
+    /**
+     * Gets the number of ticks replayed so far
+     * @return The number of ticks
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Checks if every recorded tick was replayed
+     * @return true if the recording has ended (otherwise returns false)
+     */
+    public boolean isFinished() {
+        int next = position;
+        while (next < ticks.length && ticks[next] == InputRecorder.RESETMARKER) {
+            next++;
+        }
+        return next >= ticks.length;
+    }
+}
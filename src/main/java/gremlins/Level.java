@@ -1,8 +1,7 @@
 package gremlins;
 
-import java.util.Scanner;
-import java.io.File;
-import java.io.FileNotFoundException;
+import processing.core.PApplet;
+
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
@@ -12,115 +11,129 @@ import java.util.Random;
  * The class that encompasses a level of the game
  */
 public class Level {
-    private App app;
+    private Engine engine;
+    private Sprites sprites;
     private Player player;
     private Map<String, Weapon> weaponList;
     private Random rand;
     private String levelPath;
 
     private boolean isValid;
+    private LevelSnapshot snapshot;
 
-    private Tile[][] tileMap;
+    private TileGrid tileMap;
     private List<Enemy> enemies;
-    private List<Projectile> projectiles;
+    private ProjectileStore projectiles = new ProjectileStore(64);
+    private FlowField flowField;
+
+    private List<Enemy> dead = new ArrayList<Enemy>();
+    private SpatialGrid enemyGrid;
+    private SpatialGrid projectileGrid;
 
     /**
      * The constructor for the Level class
-     * @param app The app where the level exists
+     * @param engine The engine where the level exists
+     * @param player The current player
+     * @param levelPath The file path where the level's text file is contained
+     * @param weaponList The list of all possible weapons
+     * @param rand The random number generator for the level
+     */
+    public Level(Engine engine, Player player, String levelPath, Map<String, Weapon> weaponList, Random rand) {
+        this(engine, player, levelPath, LevelData.load(levelPath), weaponList, rand);
+    }
+
+    /**
+     * The constructor for the Level class using a level file that was already read
+     * @param engine The engine where the level exists
      * @param player The current player
      * @param levelPath The file path where the level's text file is contained
+     * @param data The layout read from the level's file (null if the level is invalid)
      * @param weaponList The list of all possible weapons
      * @param rand The random number generator for the level
      */
-    public Level(App app, Player player, String levelPath, Map<String, Weapon> weaponList, Random rand) {
-        this.app = app;
+    public Level(Engine engine, Player player, String levelPath, LevelData data, Map<String, Weapon> weaponList, Random rand) {
+        this.engine = engine;
+        this.sprites = engine.getSprites();
         this.player = player;
         this.levelPath = levelPath;
         this.weaponList = weaponList;
         this.rand = rand;
 
-        isValid = initialiseLevel();
+        // The map takes the size of the level's layout
+        int rows = data == null ? App.ROWS : data.getRows();
+        int cols = data == null ? App.COLS : data.getCols();
+        tileMap = new TileGrid(rows, cols);
+        flowField = new FlowField(tileMap, FuryGremlin.etherealness, App.PURSUITRANGE);
+        enemyGrid = new SpatialGrid(rows, cols);
+        projectileGrid = new SpatialGrid(rows, cols);
+
+        isValid = initialiseLevel(data);
     }
 
     /**
-     * Initialises the level, reading from the level's text file to place tiles, enemies, the player, powerups and enemies
+     * Initialises the level, using the layout from the level's file to place tiles, enemies, the player, powerups and enemies
+     * @param data The layout read from the level's file (null if the level is invalid)
      * @return true if the level is valid (otherwise returns false)
      */
-    private boolean initialiseLevel() {
+    private boolean initialiseLevel(LevelData data) {
 
-        // Tries to read the level's map from the specified file
-        File levelFile = new File(levelPath);
-        Scanner levelReader;
-        try {
-            levelReader = new Scanner(levelFile);
-        }
-        catch (FileNotFoundException e) {
+        // The level is invalid if its file could not be read
+        if (data == null) {
             return false;
         }
         
-        tileMap = new Tile[App.ROWS][App.COLS];
+        tileMap.clear();
         enemies = new ArrayList<Enemy>();
-        projectiles = new ArrayList<Projectile>();
-
-        boolean containsStart = false;
-        boolean containsExit = false;
-
-        // Reads every row and character from the text file in the expected range
-        for (int row = 0; row < App.ROWS; row++) {
-            String inputLine = levelReader.nextLine();
-
-            for (int col = 0; col < App.COLS; col++) {
-                int rowPixel = GameObject.gridToPixel(row);
-                int colPixel = GameObject.gridToPixel(col);
-
-                // If a bordering tile is not a brick, the level is invalid
-                char input = inputLine.charAt(col);
-                if ((row == 0 || col == 0 || row == App.ROWS - 1 || col == App.COLS - 1) && input != 'X') {
-                    levelReader.close();
-                    return false;
-                }
-
-                // Decides what tile, player or enemy is at the location based off the character read
-                switch (inputLine.charAt(col)) {
-                    case 'X':
-                        tileMap[row][col] = new Tile(colPixel, rowPixel, app.stonewallSprites, TileType.STONEWALL);
-                        break;
-                    case 'B':
-                        tileMap[row][col] = new Tile(colPixel, rowPixel, app.brickwallSprites, TileType.BRICKWALL);
-                        break;
-                    case 'E':
-                        tileMap[row][col] = new Tile(colPixel, rowPixel, app.doorSprites, TileType.EXIT);
-                        containsExit = true;
-                        break;
-                    case 'W':
-                        player.setCoords(colPixel, rowPixel);
-                        player.resetMove();
-                        containsStart = true;
-                        break;
-                    case 'G':
-                        enemies.add(new GreenGremlin(colPixel, rowPixel, app.gremlinSprites, weaponList.get("Slimeball Launcher").copy(), rand, tileMap));
-                        break;
-                    case 'H':
-                        enemies.add(new GhostGremlin(colPixel, rowPixel, app.ghostGremlinSprites, weaponList.get("Ghostball Launcher").copy(), rand, tileMap));
-                        break;
-                    case 'F':
-                        enemies.add(new FuryGremlin(colPixel, rowPixel, app.furyGremlinSprites, weaponList.get("Furyball Launcher").copy(), rand, tileMap));
-                        break;
-                    case 'P':
-                        Powerup powerup = generatePowerup(colPixel, rowPixel);
-                        player.addPowerup(powerup);
-                        tileMap[row][col] = powerup;
-                        break;
-                    default:
-                        break;
-                }
+        projectiles.clear();
+
+        // Only the occupied cells are visited, in the same row-major order as the file
+        for (int i = 0; i < data.getOccupiedCount(); i++) {
+            int cell = data.getOccupiedCell(i);
+            int row = cell / data.getCols();
+            int col = cell % data.getCols();
+            int rowPixel = GameObject.gridToPixel(row);
+            int colPixel = GameObject.gridToPixel(col);
+
+            // Decides what tile, player or enemy is at the location based off the character read
+            switch (data.getCell(cell)) {
+                case 'X':
+                    tileMap.setTile(row, col, new Tile(colPixel, rowPixel, sprites.stonewallSprites, TileType.STONEWALL));
+                    break;
+                case 'B':
+                    tileMap.setTile(row, col, new Tile(colPixel, rowPixel, sprites.brickwallSprites, TileType.BRICKWALL));
+                    break;
+                case 'E':
+                    tileMap.setTile(row, col, new Tile(colPixel, rowPixel, sprites.doorSprites, TileType.EXIT));
+                    break;
+                case 'W':
+                    player.setCoords(colPixel, rowPixel);
+                    player.resetMove();
+                    break;
+                case 'G':
+                    enemies.add(new GreenGremlin(colPixel, rowPixel, sprites.gremlinSprites, weaponList.get("Slimeball Launcher").copy(), rand, tileMap));
+                    break;
+                case 'H':
+                    enemies.add(new GhostGremlin(colPixel, rowPixel, sprites.ghostGremlinSprites, weaponList.get("Ghostball Launcher").copy(), rand, tileMap));
+                    break;
+                case 'F':
+                    enemies.add(new FuryGremlin(colPixel, rowPixel, sprites.furyGremlinSprites, weaponList.get("Furyball Launcher").copy(), rand, tileMap));
+                    break;
+                case 'P':
+                    Powerup powerup = generatePowerup(colPixel, rowPixel);
+                    player.addPowerup(powerup);
+                    tileMap.setTile(row, col, powerup);
+                    break;
+                default:
+                    break;
             }
         }
 
-        levelReader.close();
+        // The initial state is kept so the level can be reset without reading it again
+        snapshot = new LevelSnapshot(tileMap, enemies, player);
+        updateFlowField();
 
-        // Final validity check
-        return containsStart && containsExit;
+        // The level was validated while it was read
+        return true;
     }
 
     /**
@@ -133,9 +146,9 @@ public class Level {
 
     /**
      * Gets the tile map of the level
-     * @return The 2D array of tiles (tile map) of the level
+     * @return The grid of tiles (tile map) of the level
      */
-    public Tile[][] getMap() {
+    public TileGrid getMap() {
         return tileMap;
     }
 
@@ -157,12 +170,20 @@ public class Level {
 
     /**
      * Gets the projectiles inside the level
-     * @return The list of projectiles in the level
+     * @return The store of projectiles in the level
      */
-    public List<Projectile> getProjectiles() {
+    public ProjectileStore getProjectiles() {
         return projectiles;
     }
 
+    /**
+     * Gets the distances to the player used by chasing enemies
+     * @return The level's flow field
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
     /**
      * Randomly chooses a powerup type for a powerup tile
      * @param colPixel The pixel x-coordinate of the powerup
@@ -172,122 +193,134 @@ public class Level {
     public Powerup generatePowerup(int colPixel, int rowPixel) {
         switch (rand.nextInt(2)) {
             case 1:
-                return new ThunderballPowerup(colPixel, rowPixel, app.thunderballPowerupSprites, App.weaponChars[1], weaponList.get("Thunderball Launcher").copy(), rand);
+                return new ThunderballPowerup(colPixel, rowPixel, sprites.thunderballPowerupSprites, App.weaponChars[1], weaponList.get("Thunderball Launcher").copy(), rand);
             default:
-                return new HydroballPowerup(colPixel, rowPixel, app.hydroballPowerupSprites, App.weaponChars[2], weaponList.get("Hydroball Launcher").copy(), rand);
+                return new HydroballPowerup(colPixel, rowPixel, sprites.hydroballPowerupSprites, App.weaponChars[2], weaponList.get("Hydroball Launcher").copy(), rand);
         }
     }
 
     /**
-     * Draws the map in the application
-     */
-    public void drawMap() {
-        for (int row = 0; row < App.ROWS; row++) {
-            for (int col = 0; col < App.COLS; col++) {
-                Tile tile = tileMap[row][col];
-                if (tile != null) {
-                    tileMap[row][col].draw(app);
-                }
-            }
-        }
-    }
-
-    /**
-     * Draws all enemies to the map and makes them use their weapon if possible
+     * Makes all enemies move and use their weapon if possible
      */
     public void manageEnemies() {
         for (Enemy enemy : enemies) {
             enemy.useWeapon(this);
             enemy.tick(this);
         }
-
-        for (Enemy enemy : enemies) {
-            enemy.draw(app);
-        }
     }
 
     /**
      * Makes all projectiles move forward and destroys inactive projectiles
      */
     public void progressProjectiles() {
-        List<Projectile> inactive = new ArrayList<Projectile>();
-        for (Projectile projectile : projectiles) {
-            // The projectile becomes inactive if destroyed in a tile collision
-            if (!projectile.tick(tileMap)) {
-                inactive.add(projectile);
+        int slot = 0;
+        while (slot < projectiles.size()) {
+            // The projectile is removed if destroyed in a tile collision (its slot is refilled by an unmoved projectile)
+            if (projectiles.tick(slot, tileMap)) {
+                slot++;
+            }
+            else {
+                projectiles.remove(slot);
             }
-            projectile.draw(app);
         }
-
-        // Inactive projectiles are removed
-        projectiles.removeAll(inactive);
     }
 
     /**
      * Broken tiles are made to undergo their destroy sequence
+     * Only the tiles being destroyed are visited, not the whole map
      */
     public void progressBrokenTiles() {
-        for (int row = 0; row < App.ROWS; row++) {
-            for (int col = 0; col < App.COLS; col++) {
-                Tile tile = tileMap[row][col];
-                if (tile != null) {
-
-                    // Removes the tile if its destruction is complete
-                    if (!tile.tick()) {
-                        tileMap[row][col] = null;
-                    }
-                }
-            }
-        }
+        tileMap.progressDestruction();
+    }
+
+    /**
+     * Brings the distances to the player up to date, after the player moves or tiles are removed
+     */
+    public void updateFlowField() {
+        flowField.update(GameObject.pixelToGrid(player.getY()), GameObject.pixelToGrid(player.getX()));
     }
 
     /**
      * Manages all key non-tile collision events in the level
+     * Player projectiles are only checked against enemies and enemy projectiles in neighbouring cells
      */
     public void manageCollisions() {
-        List<Projectile> inactive = new ArrayList<Projectile>(); 
-        List<Enemy> dead = new ArrayList<Enemy>();
+        dead.clear();
 
         // Kills the player if they collide with an enemy
         for (Enemy enemy : enemies) {
             if (player.checkCollision(enemy)) {
+                engine.recordDeath(CollisionType.ENEMY);
                 reset();
             }
         }
 
-        for (Projectile projectile : projectiles) {
+        fillCollisionGrids();
+
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            int x = projectiles.getX(slot);
+            int y = projectiles.getY(slot);
             
             // Kills the player if they collide with an enemy projectile
-            if (projectile.getCollisionType() == CollisionType.ENEMYPROJECTILE) {
-                if (player.checkCollision(projectile)) {
+            if (projectiles.getCollisionType(slot) == CollisionType.ENEMYPROJECTILE) {
+                if (player.checkCollision(x, y)) {
+                    engine.recordDeath(CollisionType.ENEMYPROJECTILE);
                     reset();
+
+                    // A reset moves the enemies and clears the projectiles, so the grids must be refilled
+                    fillCollisionGrids();
                 }
             }
             
             else {
 
                 // Kills the enemy if they collide with a player projectile
-                for (Enemy enemy : enemies) {
-                    if (enemy.checkCollision(projectile)) {
-                        inactive.add(projectile);
+                int candidateCount = enemyGrid.query(x, y);
+                for (int i = 0; i < candidateCount; i++) {
+                    Enemy enemy = enemies.get(enemyGrid.getCandidate(i));
+                    if (enemy.checkCollision(x, y)) {
+                        projectiles.markInactive(slot);
                         dead.add(enemy);
                     }
                 }
 
                 // Destroys both projectiles when a player and enemy projectile collide
-                for (Projectile other : projectiles) {
-                    if (other.getCollisionType() == CollisionType.ENEMYPROJECTILE && projectile.checkCollision(other)) {
-                        inactive.add(projectile);
-                        inactive.add(other);
+                candidateCount = projectileGrid.query(x, y);
+                for (int i = 0; i < candidateCount; i++) {
+                    int other = projectileGrid.getCandidate(i);
+                    if (projectiles.checkCollision(other, x, y)) {
+                        projectiles.markInactive(slot);
+                        projectiles.markInactive(other);
                     }
                 }
             }
         }
 
         // Removes all inactive projectiles and teleports dead enemies
-        projectiles.removeAll(inactive);
+        projectiles.removeInactive();
         for (Enemy enemy : dead) {
-            enemy.teleport(player, tileMap);
+            String name = enemy.getClass().getSimpleName();
+            logEvent(GameEventType.KILL, GameObject.pixelToGrid(enemy.getY()), GameObject.pixelToGrid(enemy.getX()), 0, name);
+            boolean isFar = enemy.teleport(player, tileMap);
+            logEvent(GameEventType.TELEPORT, GameObject.pixelToGrid(enemy.getY()), GameObject.pixelToGrid(enemy.getX()), isFar ? 1 : 0, name);
+        }
+    }
+
+    /**
+     * Places the enemies and enemy projectiles into the collision grids
+     */
+    private void fillCollisionGrids() {
+        enemyGrid.clear();
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            enemyGrid.insert(i, enemy.getX(), enemy.getY());
+        }
+
+        projectileGrid.clear();
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            if (projectiles.getCollisionType(slot) == CollisionType.ENEMYPROJECTILE) {
+                projectileGrid.insert(slot, projectiles.getX(slot), projectiles.getY(slot));
+            }
         }
     }
 
@@ -306,8 +339,8 @@ public class Level {
 
         // Progresses to the next level if the player is at an exit
         if (currentTileType == TileType.EXIT) {
-            System.out.println("At exit");
-            app.progressLevel();
+            logEvent(GameEventType.EXIT, GameObject.pixelToGrid(currentTile.getY()), GameObject.pixelToGrid(currentTile.getX()), engine.getLevelNumber(), null);
+            engine.progressLevel();
         }
 
         // Makes contact with the powerup if the player is on a powerup tile
@@ -322,27 +355,75 @@ public class Level {
      * @return true if the game has not ended (returns false otherwise)
      */
     public boolean reset() {
-        if (player.removeLife(this)) {
-            initialiseLevel();
-            return true;
+        PlayerDeathEvent event = new PlayerDeathEvent();
+        event.begin();
+        event.levelNumber = engine.getLevelNumber();
+        event.row = GameObject.pixelToGrid(player.getY());
+        event.col = GameObject.pixelToGrid(player.getX());
+
+        boolean isGameActive = player.removeLife(this);
+        if (isGameActive) {
+            projectiles.clear();
+            snapshot.restore(tileMap, player);
         }
         else {
-            app.endGame(false);
-            return false;
+            engine.endGame(false);
         }
+
+        event.livesLeft = player.getLives();
+        event.gameOver = !isGameActive;
+        event.commit();
+        return isGameActive;
     }   
 
     /**
-     * Performs all key level events every frame
+     * Adds an event to the game's event log, if there is one
+     * @param type The kind of event
+     * @param row The row of the event
+     * @param col The column of the event
+     * @param value A number describing the event
+     * @param detail A name describing the event (can be null)
+     */
+    public void logEvent(GameEventType type, int row, int col, int value, String detail) {
+        engine.logEvent(type, row, col, value, detail);
+    }
+
+    /**
+     * Performs all key level events every tick
      */
     public void tick() {
-        drawMap();
+        FrameProfiler profiler = engine.getProfiler();
+        long time = profiler.start();
 
         progressProjectiles();
+        time = profiler.lap(FramePhase.PROJECTILES, time);
         progressBrokenTiles();
+        time = profiler.lap(FramePhase.BROKENTILES, time);
+        updateFlowField();
+        time = profiler.lap(FramePhase.FLOWFIELD, time);
 
         checkTileEvent();
+        time = profiler.lap(FramePhase.TILEEVENT, time);
         manageCollisions();
+        time = profiler.lap(FramePhase.COLLISIONS, time);
         manageEnemies();
+        profiler.lap(FramePhase.ENEMIES, time);
+    }
+
+    /**
+     * Draws the projectiles and enemies the camera can see, in map coordinates
+     * The map itself is drawn by a MapRenderer
+     * @param app The application the level is drawn into
+     * @param camera The camera deciding which part of the level is visible
+     * @param alpha How far the game is between the last tick and the next one (from 0 to 1)
+     */
+    public void draw(PApplet app, Camera camera, float alpha) {
+        projectiles.draw(app, camera, alpha);
+
+        for (Enemy enemy : enemies) {
+            if (camera.isVisible(enemy.getDrawX(alpha), enemy.getDrawY(alpha))) {
+                enemy.draw(app, alpha);
+            }
+        }
     }
 }
@@ -0,0 +1,68 @@
+package gremlins;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Compiles level text files into the binary level format, so they can be loaded without parsing
+ * Each compiled level is written next to its text file with the .glv extension
+ */
+public class LevelCompiler {
+
+    /**
+     * The constructor for the LevelCompiler class
+     */
+    private LevelCompiler() {}
+
+    /**
+     * Gets the path of the compiled version of a level
+     * @param levelPath The file path of the level's text file
+     * @return The file path of the compiled level
+     */
+    public static String compiledPath(String levelPath) {
+        int extension = levelPath.lastIndexOf('.');
+        if (extension > Math.max(levelPath.lastIndexOf('/'), levelPath.lastIndexOf('\\'))) {
+            levelPath = levelPath.substring(0, extension);
+        }
+        return levelPath + LevelData.COMPILEDEXTENSION;
+    }
+
+    /**
+     * Compiles a single level
+     * @param levelPath The file path of the level's text file
+     * @return true if the level was valid and compiled (otherwise returns false)
+     * @throws IOException If the compiled level could not be written
+     */
+    public static boolean compile(String levelPath) throws IOException {
+        LevelData data = LevelData.load(levelPath);
+        if (data == null) {
+            return false;
+        }
+
+        Files.write(Paths.get(compiledPath(levelPath)), data.toCompiled());
+        return true;
+    }
+
+    /**
+     * Compiles every level given
+     * @param args The file paths of the level text files
+     * @throws IOException If a compiled level could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        int failed = 0;
+        for (String levelPath : args) {
+            if (compile(levelPath)) {
+                System.out.println("Compiled " + levelPath + " to " + compiledPath(levelPath));
+            }
+            else {
+                System.out.println("Skipped invalid level " + levelPath);
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package gremlins;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * The validated layout of a level, read from a level text file or a compiled binary level file
+ * Alongside the grid of characters, the layout lists the cells that hold a tile or spawn an object, so building the level skips empty cells
+ */
+public class LevelData {
+    // Compiled level files start with the bytes "GLV" followed by the format version
+    public static final int MAGIC = 0x474C5601;
+    public static final String COMPILEDEXTENSION = ".glv";
+
+    // Passed as a level's rows or columns to take the size from the level file
+    public static final int ANYSIZE = 0;
+
+    private static final int HEADERSIZE = 4 * Integer.BYTES;
+
+    private int rows;
+    private int cols;
+    private byte[] cells;
+
+    // Every cell that is not empty, in row-major order
+    private int[] occupiedCells;
+    private int playerCell;
+
+    /**
+     * The constructor for the LevelData class
+     * @param rows The number of rows in the level
+     * @param cols The number of columns in the level
+     * @param cells The character of every cell in row-major order
+     * @param occupiedCells Every cell that is not empty, in row-major order
+     * @param playerCell The cell where the player starts
+     */
+    private LevelData(int rows, int cols, byte[] cells, int[] occupiedCells, int playerCell) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+        this.occupiedCells = occupiedCells;
+        this.playerCell = playerCell;
+    }
+
+    /**
+     * Reads a level file of any size with a single read
+     * @param levelPath The file path of the level
+     * @return The level's layout (returns null if the file is missing or the level is invalid)
+     */
+    public static LevelData load(String levelPath) {
+        return load(levelPath, ANYSIZE, ANYSIZE);
+    }
+
+    /**
+     * Reads a level file with a single read. Files ending in .glv are read as compiled levels, anything else as text
+     * @param levelPath The file path of the level
+     * @param rows The number of rows a level must have (ANYSIZE takes the number from the file)
+     * @param cols The number of columns a level must have (ANYSIZE takes the number from the file)
+     * @return The level's layout (returns null if the file is missing or the level is invalid)
+     */
+    public static LevelData load(String levelPath, int rows, int cols) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(Paths.get(levelPath));
+        }
+        catch (IOException e) {
+            return null;
+        }
+
+        if (levelPath.endsWith(COMPILEDEXTENSION)) {
+            return readCompiled(ByteBuffer.wrap(bytes), rows, cols);
+        }
+        return parse(bytes, rows, cols);
+    }
+
+    /**
+     * Parses a level from the bytes of its text file
+     * Only the first cols characters of the first rows lines are read, and lines may end with either \n or \r\n
+     * A level of any size has as many rows as lines before the first blank line, and as many columns as its first line
+     * @param bytes The contents of the text file
+     * @param rows The number of rows a level must have (ANYSIZE takes the number from the file)
+     * @param cols The number of columns a level must have (ANYSIZE takes the number from the file)
+     * @return The level's layout (returns null if the file is too short or the level is invalid)
+     */
+    public static LevelData parse(byte[] bytes, int rows, int cols) {
+        if (rows == ANYSIZE) {
+            rows = countRows(bytes);
+        }
+        if (cols == ANYSIZE) {
+            cols = lineLength(bytes, 0);
+        }
+        if (rows <= 0 || cols <= 0) {
+            return null;
+        }
+
+        byte[] cells = new byte[rows * cols];
+
+        int position = 0;
+        for (int row = 0; row < rows; row++) {
+            // A missing line makes the level invalid
+            if (position >= bytes.length) {
+                return null;
+            }
+
+            // A line shorter than the map makes the level invalid
+            if (lineLength(bytes, position) < cols) {
+                return null;
+            }
+
+            System.arraycopy(bytes, position, cells, row * cols, cols);
+            position = nextLine(bytes, position);
+        }
+
+        return validate(rows, cols, cells);
+    }
+
+    /**
+     * Finds the start of the line after a position
+     * @param bytes The contents of the text file
+     * @param position The position of a character in a line
+     * @return The position after the line's end (past the end of the file for the last line)
+     */
+    private static int nextLine(byte[] bytes, int position) {
+        while (position < bytes.length && bytes[position] != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Measures a line of a text file, not counting its line ending
+     * @param bytes The contents of the text file
+     * @param position The position of the line's first character
+     * @return The number of characters in the line
+     */
+    private static int lineLength(byte[] bytes, int position) {
+        int lineEnd = Math.min(nextLine(bytes, position) - 1, bytes.length);
+        int length = lineEnd - position;
+        if (length > 0 && bytes[lineEnd - 1] == '\r') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Counts the lines of a text file before its first blank line
+     * @param bytes The contents of the text file
+     * @return The number of rows in the level
+     */
+    private static int countRows(byte[] bytes) {
+        int rows = 0;
+        int position = 0;
+        while (position < bytes.length && lineLength(bytes, position) > 0) {
+            rows++;
+            position = nextLine(bytes, position);
+        }
+        return rows;
+    }
+
+    /**
+     * Checks the rules every level must follow and lists the level's occupied cells
+     * Every bordering cell must be a stonewall, and the level must contain a start and an exit
+     * @param rows The number of rows in the level
+     * @param cols The number of columns in the level
+     * @param cells The character of every cell in row-major order
+     * @return The level's layout (returns null if the level is invalid)
+     */
+    private static LevelData validate(int rows, int cols, byte[] cells) {
+        int[] occupiedCells = new int[16];
+        int occupiedCount = 0;
+        int playerCell = -1;
+        boolean containsExit = false;
+
+        for (int cell = 0; cell < cells.length; cell++) {
+            int row = cell / cols;
+            int col = cell % cols;
+            byte input = cells[cell];
+
+            // If a bordering tile is not a brick, the level is invalid
+            if ((row == 0 || col == 0 || row == rows - 1 || col == cols - 1) && input != 'X') {
+                return null;
+            }
+
+            switch (input) {
+                case 'X':
+                case 'B':
+                case 'G':
+                case 'H':
+                case 'F':
+                case 'P':
+                    break;
+                case 'E':
+                    containsExit = true;
+                    break;
+                case 'W':
+                    playerCell = cell;
+                    break;
+                default:
+                    continue;
+            }
+
+            if (occupiedCount == occupiedCells.length) {
+                occupiedCells = Arrays.copyOf(occupiedCells, occupiedCount * 2);
+            }
+            occupiedCells[occupiedCount++] = cell;
+        }
+
+        if (playerCell < 0 || !containsExit) {
+            return null;
+        }
+        return new LevelData(rows, cols, cells, Arrays.copyOf(occupiedCells, occupiedCount), playerCell);
+    }
+
+    /**
+     * Reads a compiled level. The grid is checked by the same rules as a text level, and the stored player and occupied
+     * cells must match the grid, so a damaged file is treated as an invalid level rather than failing when it is built
+     * @param buffer The contents of the compiled level file
+     * @param rows The number of rows a level must have (ANYSIZE accepts any number)
+     * @param cols The number of columns a level must have (ANYSIZE accepts any number)
+     * @return The level's layout (returns null if the file is not a valid compiled level of the expected size)
+     */
+    public static LevelData readCompiled(ByteBuffer buffer, int rows, int cols) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < HEADERSIZE || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        int fileRows = buffer.getInt();
+        int fileCols = buffer.getInt();
+        if (fileRows <= 0 || fileCols <= 0 || rows != ANYSIZE && fileRows != rows || cols != ANYSIZE && fileCols != cols) {
+            return null;
+        }
+        rows = fileRows;
+        cols = fileCols;
+
+        int occupiedCount = buffer.getInt();
+        if (occupiedCount < 0 || occupiedCount > (long)rows * cols || buffer.remaining() != (long)rows * cols + (occupiedCount + 1) * (long)Integer.BYTES) {
+            return null;
+        }
+
+        byte[] cells = new byte[rows * cols];
+        buffer.get(cells);
+        int playerCell = buffer.getInt();
+        int[] occupiedCells = new int[occupiedCount];
+        buffer.asIntBuffer().get(occupiedCells);
+
+        // The grid must be a valid level, and the stored cells must be the ones it lists
+        LevelData level = validate(rows, cols, cells);
+        if (level == null || level.playerCell != playerCell || !Arrays.equals(level.occupiedCells, occupiedCells)) {
+            return null;
+        }
+        return level;
+    }
+
+    /**
+     * Writes the level in the compiled format
+     * The layout is: magic, rows, columns, occupied cell count, the grid of characters, the player's cell and the occupied cells
+     * @return The contents of the compiled level file
+     */
+    public byte[] toCompiled() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADERSIZE + cells.length + (occupiedCells.length + 1) * Integer.BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putInt(rows);
+        buffer.putInt(cols);
+        buffer.putInt(occupiedCells.length);
+        buffer.put(cells);
+        buffer.putInt(playerCell);
+        for (int cell : occupiedCells) {
+            buffer.putInt(cell);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Gets the number of rows in the level
+     * @return The number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns in the level
+     * @return The number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Gets the character of a cell
+     * @param cell The index of the cell (row * cols + col)
+     * @return The character describing the cell's contents
+     */
+    public char getCell(int cell) {
+        return (char)cells[cell];
+    }
+
+    /**
+     * Gets the number of cells that are not empty
+     * @return The number of occupied cells
+     */
+    public int getOccupiedCount() {
+        return occupiedCells.length;
+    }
+
+    /**
+     * Gets a cell that is not empty. Occupied cells are in row-major order
+     * @param i The position of the cell in the occupied list
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getOccupiedCell(int i) {
+        return occupiedCells[i];
+    }
+
+    /**
+     * Gets the cell where the player starts
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getPlayerCell() {
+        return playerCell;
+    }
+}
@@ -0,0 +1,34 @@
+package gremlins;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder event for building a level when the game moves to it
+ */
+@Name("gremlins.LevelLoad")
+@Label("Level Load")
+@Category("Gremlins")
+@Description("Reading and building a level")
+public class LevelLoadEvent extends Event {
+    @Label("Level")
+    public int levelNumber;
+
+    @Label("Layout")
+    public String layout;
+
+    @Label("Parse Time")
+    @Description("The time spent reading the level's file, or waiting for the background read to be collected")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+
+    @Label("Preloaded")
+    public boolean preloaded;
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,105 @@
+package gremlins;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The initial state of a level, captured once after the level is read
+ * Resetting the level restores every object from the snapshot instead of reading the level file and creating new objects
+ * Only the tiles broken since the snapshot are put back, so a reset costs the same on any size of map
+ */
+public class LevelSnapshot {
+    private final int[] tileCells;
+    private final Tile[] tiles;
+
+    private final Enemy[] enemies;
+    private final int[] enemyXPos;
+    private final int[] enemyYPos;
+    private final Direction[] enemyVectors;
+
+    private final Powerup[] powerups;
+    private final int playerXPos;
+    private final int playerYPos;
+
+    /**
+     * The constructor for the LevelSnapshot class. Captures the current state of the level
+     * @param tileMap The tile map of the level
+     * @param enemies The enemies in the level
+     * @param player The player in the level
+     */
+    public LevelSnapshot(TileGrid tileMap, List<Enemy> enemies, Player player) {
+        int tileCount = 0;
+        for (int cell = 0; cell < tileMap.getRows() * tileMap.getCols(); cell++) {
+            if (tileMap.getTile(cell) != null) {
+                tileCount++;
+            }
+        }
+
+        tileCells = new int[tileCount];
+        tiles = new Tile[tileCount];
+        int i = 0;
+        for (int cell = 0; cell < tileMap.getRows() * tileMap.getCols(); cell++) {
+            if (tileMap.getTile(cell) != null) {
+                tileCells[i] = cell;
+                tiles[i] = tileMap.getTile(cell);
+                i++;
+            }
+        }
+
+        this.enemies = enemies.toArray(new Enemy[0]);
+        enemyXPos = new int[this.enemies.length];
+        enemyYPos = new int[this.enemies.length];
+        enemyVectors = new Direction[this.enemies.length];
+        for (i = 0; i < this.enemies.length; i++) {
+            enemyXPos[i] = this.enemies[i].getX();
+            enemyYPos[i] = this.enemies[i].getY();
+            enemyVectors[i] = this.enemies[i].getVector();
+        }
+
+        powerups = player.getPowerups().toArray(new Powerup[0]);
+        playerXPos = player.getX();
+        playerYPos = player.getY();
+    }
+
+    /**
+     * Returns the level to the captured state. Tiles, enemies and powerups are the same objects that were captured
+     * Tiles are never placed during a level, so only the tiles being destroyed and the tiles removed are restored
+     * @param tileMap The tile map of the level
+     * @param player The player in the level
+     */
+    public void restore(TileGrid tileMap, Player player) {
+        for (int i = 0; i < tileMap.getDestroyingCount(); i++) {
+            restoreTile(tileMap, tileMap.getDestroyingCell(i));
+        }
+        for (int i = 0; i < tileMap.getLostCount(); i++) {
+            restoreTile(tileMap, tileMap.getLostCell(i));
+        }
+        tileMap.endDestruction();
+
+        for (int i = 0; i < enemies.length; i++) {
+            enemies[i].restore(enemyXPos[i], enemyYPos[i], enemyVectors[i]);
+        }
+
+        // Powerups keep their type, and are given back to the player in their original order
+        for (Powerup powerup : powerups) {
+            powerup.restore();
+            player.addPowerup(powerup);
+        }
+        player.setCoords(playerXPos, playerYPos);
+        player.resetMove();
+    }
+
+    /**
+     * Puts a captured tile back in its cell as it was when captured
+     * @param tileMap The tile map of the level
+     * @param cell The index of the cell (row * cols + col)
+     */
+    private void restoreTile(TileGrid tileMap, int cell) {
+        // The captured cells are in increasing order
+        Tile tile = tiles[Arrays.binarySearch(tileCells, cell)];
+        tile.restore();
+
+        // Placing the tile again marks its cell as changed, so it is redrawn whole
+        tileMap.setTile(cell / tileMap.getCols(), cell % tileMap.getCols(), tile);
+    }
+}
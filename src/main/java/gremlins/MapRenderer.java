@@ -0,0 +1,242 @@
+package gremlins;
+
+import processing.core.PApplet;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+import java.util.Arrays;
+
+/**
+ * Draws a level's map using a pre-rendered buffer of its static tiles
+ * Stonewalls, exits and intact bricks are only re-rendered when their cell changes, while tiles that animate are drawn every frame
+ * The buffer only covers the cells the camera can see, so maps larger than the window cost no more to draw
+ * The buffer wraps around: each cell is held at its row and column modulo the size of the view, so when the camera
+ * scrolls onto a new row or column only the cells that came into view are rendered, over the cells that left it
+ */
+public class MapRenderer {
+    private PApplet app;
+    private PGraphics buffer;
+
+    // The grid and generation currently held in the buffer
+    private TileGrid renderedGrid;
+    private int renderedGeneration;
+
+    // The first row and column of the map held in the buffer, and the number of rows and columns it holds
+    // The first row and column are not necessarily at the top left of the buffer
+    private int originRow;
+    private int originCol;
+    private int viewRows;
+    private int viewCols;
+
+    // The cells in view holding powerups, whose sprites change without their cell changing
+    private int[] powerupCells = new int[16];
+    private int powerupCount = 0;
+
+    /**
+     * The constructor for the MapRenderer class
+     * @param app The application the map is drawn into
+     */
+    public MapRenderer(PApplet app) {
+        this.app = app;
+    }
+
+    /**
+     * Draws the visible part of the map in map coordinates, updating the buffer with any cells that changed since the last frame
+     * @param tileMap The map being drawn
+     * @param camera The camera deciding which part of the map is visible
+     */
+    public void draw(TileGrid tileMap, Camera camera) {
+        // A view that does not line up with the tiles shows part of an extra row and column
+        int rows = Math.min(tileMap.getRows(), (camera.getViewHeight() + App.SPRITESIZE - 1) / App.SPRITESIZE + 1);
+        int cols = Math.min(tileMap.getCols(), (camera.getViewWidth() + App.SPRITESIZE - 1) / App.SPRITESIZE + 1);
+        if (buffer == null || rows != viewRows || cols != viewCols) {
+            viewRows = rows;
+            viewCols = cols;
+            buffer = app.createGraphics(viewCols * App.SPRITESIZE, viewRows * App.SPRITESIZE);
+            renderedGrid = null;
+        }
+
+        // The buffer never extends past the edge of the map
+        int firstRow = Math.min(camera.getFirstRow(), tileMap.getRows() - viewRows);
+        int firstCol = Math.min(camera.getFirstCol(), tileMap.getCols() - viewCols);
+
+        // A new grid, a reloaded level or a view that jumped past the buffer is rendered in full
+        // Otherwise only the changed cells and the cells scrolled into view are rendered
+        boolean isRenderedAll = tileMap != renderedGrid || tileMap.getGeneration() != renderedGeneration
+            || Math.abs(firstRow - originRow) >= viewRows || Math.abs(firstCol - originCol) >= viewCols;
+        boolean isScrolled = firstRow != originRow || firstCol != originCol;
+
+        // The buffer is only opened for drawing when something in it changed, so a still map costs a single image call
+        if (isRenderedAll || isScrolled || tileMap.getDirtyCount() > 0) {
+            buffer.beginDraw();
+            buffer.noStroke();
+            if (isRenderedAll) {
+                originRow = firstRow;
+                originCol = firstCol;
+                renderAll(tileMap);
+            }
+            else {
+                // Changed cells are rendered before scrolling, as the cells scrolled into view are rendered as they are now
+                for (int i = 0; i < tileMap.getDirtyCount(); i++) {
+                    int cell = tileMap.getDirtyCell(i);
+                    if (isInView(tileMap, cell)) {
+                        renderCell(tileMap, cell);
+                    }
+                }
+                if (isScrolled) {
+                    scroll(tileMap, firstRow, firstCol);
+                }
+            }
+            tileMap.clearDirty();
+            buffer.endDraw();
+        }
+
+        drawBuffer();
+
+        // Tiles being destroyed change their sprite every few frames
+        for (int i = 0; i < tileMap.getDestroyingCount(); i++) {
+            int cell = tileMap.getDestroyingCell(i);
+            if (isInView(tileMap, cell)) {
+                tileMap.getTile(cell).draw(app);
+            }
+        }
+
+        for (int i = 0; i < powerupCount; i++) {
+            Tile tile = tileMap.getTile(powerupCells[i]);
+            if (tile != null) {
+                tile.draw(app);
+            }
+        }
+    }
+
+    /**
+     * Checks if a cell is held in the buffer
+     * @param tileMap The map being drawn
+     * @param cell The index of the cell (row * cols + col)
+     * @return true if the cell is inside the buffer (otherwise returns false)
+     */
+    private boolean isInView(TileGrid tileMap, int cell) {
+        int row = cell / tileMap.getCols() - originRow;
+        int col = cell % tileMap.getCols() - originCol;
+        return row >= 0 && row < viewRows && col >= 0 && col < viewCols;
+    }
+
+    /**
+     * Draws the buffer into the window in map coordinates
+     * The view starts part way through the wrapped buffer, so it is drawn in up to four pieces
+     */
+    private void drawBuffer() {
+        // The rows and columns from the first ones in view up to the bottom and right edges of the buffer
+        int topRows = viewRows - originRow % viewRows;
+        int leftCols = viewCols - originCol % viewCols;
+
+        drawPiece(originRow, originCol, topRows, leftCols);
+        drawPiece(originRow, originCol + leftCols, topRows, viewCols - leftCols);
+        drawPiece(originRow + topRows, originCol, viewRows - topRows, leftCols);
+        drawPiece(originRow + topRows, originCol + leftCols, viewRows - topRows, viewCols - leftCols);
+    }
+
+    /**
+     * Draws a rectangle of cells from the buffer into the window, at their position on the map
+     * @param row The first row of the map drawn
+     * @param col The first column of the map drawn
+     * @param rows The number of rows drawn (nothing is drawn if 0)
+     * @param cols The number of columns drawn (nothing is drawn if 0)
+     */
+    private void drawPiece(int row, int col, int rows, int cols) {
+        if (rows == 0 || cols == 0) {
+            return;
+        }
+
+        int x = (col % viewCols) * App.SPRITESIZE;
+        int y = (row % viewRows) * App.SPRITESIZE;
+        int width = cols * App.SPRITESIZE;
+        int height = rows * App.SPRITESIZE;
+        app.image(buffer, col * App.SPRITESIZE, row * App.SPRITESIZE, width, height, x, y, x + width, y + height);
+    }
+
+    /**
+     * Renders every cell of the map held in the buffer
+     * @param tileMap The map being rendered
+     */
+    private void renderAll(TileGrid tileMap) {
+        renderedGrid = tileMap;
+        renderedGeneration = tileMap.getGeneration();
+
+        buffer.background(191, 153, 114);
+        for (int row = originRow; row < originRow + viewRows; row++) {
+            for (int col = originCol; col < originCol + viewCols; col++) {
+                int cell = row * tileMap.getCols() + col;
+                if (tileMap.getTile(cell) != null) {
+                    renderCell(tileMap, cell);
+                }
+            }
+        }
+        findPowerups(tileMap);
+    }
+
+    /**
+     * Moves the view held in the buffer, rendering only the cells that came into view over the cells that left it
+     * @param tileMap The map being rendered
+     * @param firstRow The first row of the new view
+     * @param firstCol The first column of the new view
+     */
+    private void scroll(TileGrid tileMap, int firstRow, int firstCol) {
+        int previousRow = originRow;
+        int previousCol = originCol;
+        originRow = firstRow;
+        originCol = firstCol;
+
+        for (int row = originRow; row < originRow + viewRows; row++) {
+            boolean isNewRow = row < previousRow || row >= previousRow + viewRows;
+            for (int col = originCol; col < originCol + viewCols; col++) {
+                if (isNewRow || col < previousCol || col >= previousCol + viewCols) {
+                    renderCell(tileMap, row * tileMap.getCols() + col);
+                }
+            }
+        }
+        findPowerups(tileMap);
+    }
+
+    /**
+     * Records the cells in view whose tiles are powerups, as their sprites are drawn every frame
+     * @param tileMap The map being rendered
+     */
+    private void findPowerups(TileGrid tileMap) {
+        powerupCount = 0;
+        for (int row = originRow; row < originRow + viewRows; row++) {
+            for (int col = originCol; col < originCol + viewCols; col++) {
+                int cell = row * tileMap.getCols() + col;
+                Tile tile = tileMap.getTile(cell);
+                if (tile != null && tile.getTileType() == TileType.POWERUP) {
+                    if (powerupCount == powerupCells.length) {
+                        powerupCells = Arrays.copyOf(powerupCells, powerupCount * 2);
+                    }
+                    powerupCells[powerupCount++] = cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a single cell into the buffer, at its row and column modulo the size of the view
+     * Cells whose tiles animate are left as background
+     * @param tileMap The map being rendered
+     * @param cell The index of the cell (row * cols + col)
+     */
+    private void renderCell(TileGrid tileMap, int cell) {
+        int x = (cell % tileMap.getCols() % viewCols) * App.SPRITESIZE;
+        int y = (cell / tileMap.getCols() % viewRows) * App.SPRITESIZE;
+
+        buffer.fill(191, 153, 114);
+        buffer.rect(x, y, App.SPRITESIZE, App.SPRITESIZE);
+
+        Tile tile = tileMap.getTile(cell);
+        if (tile != null && !tile.isDestroyed() && tile.getTileType() != TileType.POWERUP) {
+            PImage sprite = tile.getSprite();
+            if (sprite != null) {
+                buffer.image(sprite, x, y);
+            }
+        }
+    }
+}
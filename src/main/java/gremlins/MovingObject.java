@@ -1,5 +1,6 @@
 package gremlins;
 
+import processing.core.PApplet;
 import processing.core.PImage;
 
 /**
@@ -13,6 +14,10 @@ public abstract class MovingObject extends GameObject {
     protected boolean passThroughBroken;
     protected CollisionType collisionType;
 
+    // The position before the current tick's movement, which drawing interpolates from
+    private int lastX;
+    private int lastY;
+
     /**
      * The constructor for the MovingObject class
      * @param xPos The pixel x-coordinate of the object
@@ -27,6 +32,8 @@ public abstract class MovingObject extends GameObject {
         this.speed = speed;
         this.etherealness = etherealness;
         this.collisionType = collisionType;
+        lastX = xPos;
+        lastY = yPos;
     }
 
     /**
@@ -35,7 +42,20 @@ public abstract class MovingObject extends GameObject {
      * @param tileMap The tile map for the level where the object exists
      * @return true if the move can be done (otherwise returns false)
      */
-    public boolean validateMove(Direction vector, Tile[][] tileMap) {
+    public boolean validateMove(Direction vector, TileGrid tileMap) {
+        return validateMove(xPos, yPos, vector, etherealness, tileMap);
+    }
+
+    /**
+     * Checks if an object at the given position can move in the provided direction
+     * @param xPos The pixel x-coordinate of the object
+     * @param yPos The pixel y-coordinate of the object
+     * @param vector The direction the object attempts to move in
+     * @param etherealness The highest level of wall the object can pass through
+     * @param tileMap The tile map for the level where the object exists
+     * @return true if the move can be done (otherwise returns false)
+     */
+    public static boolean validateMove(int xPos, int yPos, Direction vector, int etherealness, TileGrid tileMap) {
         if (vector == null) {
             return false;
         }
@@ -44,14 +64,23 @@ public abstract class MovingObject extends GameObject {
         int tempRow = pixelToGrid(yPos) + vector.getY();
 
         // Checks if the attempted movement stays inside the map
-        if (tempCol >= App.COLS || tempCol < 0 || tempRow >= App.ROWS || tempRow < 0) {
+        if (!tileMap.inBounds(tempRow, tempCol)) {
             return false;
         }
 
         // Checks if the movement occurs into a valid tile
-        Tile tile = tileMap[tempRow][tempCol];
-        if (tile != null) {
-            if (tile.getStrength() == 0 || etherealness >= 0 && tile.getStrength() > etherealness) {
+        return canPassThrough(tileMap.getStrength(tempRow, tempCol), etherealness);
+    }
+
+    /**
+     * Checks if an object can enter a cell holding a tile of the given strength
+     * @param strength The strength of the tile in the cell (TileGrid.EMPTY if the cell has no tile)
+     * @param etherealness The highest level of wall the object can pass through
+     * @return true if the object can enter the cell (otherwise returns false)
+     */
+    public static boolean canPassThrough(int strength, int etherealness) {
+        if (strength != TileGrid.EMPTY) {
+            if (strength == 0 || etherealness >= 0 && strength > etherealness) {
                 return false;
             }
         }
@@ -66,7 +95,7 @@ public abstract class MovingObject extends GameObject {
      * @param isForced If true, move validation is ignored
      * @return true if the move occurs (otherwise returns false)
      */
-    public boolean startMove(Direction newVector, Tile[][] tileMap, boolean isForced) {
+    public boolean startMove(Direction newVector, TileGrid tileMap, boolean isForced) {
         // If the object is currently performing a move, it will not perform another one
         if (moveRemaining <= 0) {
 
@@ -86,6 +115,8 @@ public abstract class MovingObject extends GameObject {
      * @return true if the move is still incomplete (otherwise returns false)
      */
     public boolean incrementMove() {
+        lastX = xPos;
+        lastY = yPos;
         if (moveRemaining > 0) {
             xPos += speed * vector.getX();
             yPos += speed * vector.getY();
@@ -97,6 +128,47 @@ public abstract class MovingObject extends GameObject {
         return false;
     }
 
+    /**
+     * Sets the cooridinates of the object in pixels. The object jumps there rather than being drawn moving there
+     * @param x The pixel x-coordinate of the object
+     * @param y The pixel y-coordinate of the object
+     */
+    @Override
+    public void setCoords(int x, int y) {
+        super.setCoords(x, y);
+        lastX = x;
+        lastY = y;
+    }
+
+    /**
+     * Gets the x-coordinate the object is drawn at between ticks
+     * @param alpha How far the game is between the last tick and the next one (from 0 to 1)
+     * @return The pixel x-coordinate between the object's position before and after the last tick
+     */
+    public int getDrawX(float alpha) {
+        return lastX + Math.round((xPos - lastX) * alpha);
+    }
+
+    /**
+     * Gets the y-coordinate the object is drawn at between ticks
+     * @param alpha How far the game is between the last tick and the next one (from 0 to 1)
+     * @return The pixel y-coordinate between the object's position before and after the last tick
+     */
+    public int getDrawY(float alpha) {
+        return lastY + Math.round((yPos - lastY) * alpha);
+    }
+
+    /**
+     * Draws the object into the app part way through its last tick's movement
+     * @param app The application the object exists in
+     * @param alpha How far the game is between the last tick and the next one (from 0 to 1)
+     */
+    public void draw(PApplet app, float alpha) {
+        if (getSprite() != null) {
+            app.image(getSprite(), getDrawX(alpha), getDrawY(alpha));
+        }
+    }
+
     /**
      * Updates the object direction vector
      * @param newVector The new direction for the object
@@ -113,6 +185,14 @@ public abstract class MovingObject extends GameObject {
         moveRemaining = 0;
     }
 
+    /**
+     * Gets the direction the object is moving in
+     * @return The direction of the object (returns null if the object doesn't move)
+     */
+    public Direction getVector() {
+        return vector;
+    }
+
     /**
      * Gets the object's collision type
      * @return The collision type of the object
@@ -134,4 +214,15 @@ public abstract class MovingObject extends GameObject {
 
         return false;
     }
+
+    /**
+     * Checks if the object collides with an object at the given position
+     * @param x The pixel x-coordinate of the other object
+     * @param y The pixel y-coordinate of the other object
+     * @return true if the objects are colliding (otherwise returns false)
+     */
+    public boolean checkCollision(int x, int y) {
+        // Checks for collision by checking if sprites overlap
+        return Math.abs(xPos - x) < App.SPRITESIZE && Math.abs(yPos - y) < App.SPRITESIZE;
+    }
 }
@@ -10,7 +10,7 @@ import java.util.ArrayList;
  * The class representing the player
  */
 public class Player extends MovingObject {
-    private static int etherealness = 0;
+    private static final int etherealness = 0;
 
     private int lives;
     private Map<Character, Weapon> weapons;
@@ -62,10 +62,10 @@ public class Player extends MovingObject {
     /**
      * Fires the player's triggered weapon
      * @param key The key corresponding to the weapon being fired
-     * @param projectiles The list of projectiles in the level
+     * @param projectiles The store of projectiles in the level
      * @return true if the weapon is fired successfully (otherwise returns false)
      */
-    public boolean useWeapon(Character key, List<Projectile> projectiles) {
+    public boolean useWeapon(Character key, ProjectileStore projectiles) {
         if (weapons.keySet().contains(key)) {
             weapons.get(key).fire(xPos, yPos, vector, projectiles);
             return true;
@@ -79,13 +79,12 @@ public class Player extends MovingObject {
      * @param tileMap The tile map for the level where the player exists
      * @return The tile that the player is on (returns null if the player has not completed their move)
      */
-    public Tile currentTile(Tile[][] tileMap) {
+    public Tile currentTile(TileGrid tileMap) {
         if (moveRemaining == 0) {
             int col = pixelToGrid(xPos);
             int row = pixelToGrid(yPos);
-            Tile tile = tileMap[row][col];
-            if (tile != null) {    
-                return tile;
+            if (!tileMap.isEmpty(row, col)) {    
+                return tileMap.getTile(row, col);
             }
         }
 
@@ -104,7 +103,7 @@ public class Player extends MovingObject {
         for (Powerup powerup : powerups) {
             powerup.disablePowerup(level);
         }
-        powerups = new ArrayList<Powerup>();
+        powerups.clear();
 
         if (lives > 0) {
             return true;
@@ -0,0 +1,14 @@
+package gremlins;
+
+/**
+ * Decides the player's input every tick when the game is played without a person, such as in batch simulations
+ */
+public interface PlayerController {
+
+    /**
+     * Sets the player's input for the next tick
+     * @param engine The engine running the game
+     * @param input The input given to the engine for the next tick
+     */
+    void update(Engine engine, Input input);
+}
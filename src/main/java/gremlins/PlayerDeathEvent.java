@@ -0,0 +1,31 @@
+package gremlins;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The flight recorder event for the player being killed and the level being reset
+ */
+@Name("gremlins.PlayerDeath")
+@Label("Player Death")
+@Category("Gremlins")
+@Description("The player losing a life, lasting as long as the level takes to reset")
+public class PlayerDeathEvent extends Event {
+    @Label("Level")
+    public int levelNumber;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("Lives Left")
+    public int livesLeft;
+
+    @Label("Game Over")
+    public boolean gameOver;
+}
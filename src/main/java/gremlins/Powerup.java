@@ -47,8 +47,15 @@ public abstract class Powerup extends Tile {
     @Override
     public boolean contact(Level level) {
         if (isAvailable) {    
-            System.out.println("Powerup activated");
             isAvailable = false;
+            level.logEvent(GameEventType.POWERUP, pixelToGrid(yPos), pixelToGrid(xPos), powerupCooldown, powerupType.name());
+
+            PowerupEvent event = new PowerupEvent();
+            event.type = powerupType.name();
+            event.row = pixelToGrid(yPos);
+            event.col = pixelToGrid(xPos);
+            event.activeTime = powerupCooldown;
+            event.commit();
 
             activatePowerup(level);
             
@@ -64,6 +71,18 @@ public abstract class Powerup extends Tile {
         return false;
     }
 
+    /**
+     * Returns the powerup to the state it was created in, keeping its type
+     */
+    @Override
+    public void restore() {
+        super.restore();
+        isAvailable = false;
+        setPowerupTimer(0);
+        setAvailabilityTimer((availabilityCooldown - powerupCooldown) * App.FPS);
+        updateSprite(1);
+    }
+
     /**
      * Reduces the active timers of the powerup
      * @return false if the powerup expired (returns true otherwise)
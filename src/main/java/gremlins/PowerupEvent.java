@@ -0,0 +1,30 @@
+package gremlins;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder event for the player activating a powerup
+ */
+@Name("gremlins.Powerup")
+@Label("Powerup Activation")
+@Category("Gremlins")
+@Description("The player walking onto an available powerup")
+public class PowerupEvent extends Event {
+    @Label("Type")
+    public String type;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("Active Time")
+    @Timespan(Timespan.SECONDS)
+    public long activeTime;
+}
@@ -0,0 +1,309 @@
+package gremlins;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+import java.util.Arrays;
+
+/**
+ * The store of every active projectile in a level
+ * Projectiles are kept in parallel arrays indexed by slot. Removed projectiles are replaced by the last projectile, so
+ * slots stay packed and firing or destroying projectiles allocates nothing once the arrays are large enough
+ */
+public class ProjectileStore {
+    private static final ProjectileType[] types = ProjectileType.values();
+    private static final Direction[] directions = Direction.values();
+    private static final byte NOVECTOR = -1;
+
+    private int size = 0;
+
+    private int[] xPos;
+    private int[] yPos;
+
+    // The position before the current tick's movement, which drawing interpolates from
+    private int[] lastX;
+    private int[] lastY;
+
+    private byte[] vector;
+    private int[] moveRemaining;
+    private int[] collisions;
+    private byte[] type;
+    private boolean[] inactive;
+
+    // Every projectile of the same type shares a sprite set
+    private PImage[][] typeSprites = new PImage[types.length][];
+
+    /**
+     * The constructor for the ProjectileStore class
+     * @param capacity The number of projectiles the store can hold before growing
+     */
+    public ProjectileStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        xPos = new int[capacity];
+        yPos = new int[capacity];
+        lastX = new int[capacity];
+        lastY = new int[capacity];
+        vector = new byte[capacity];
+        moveRemaining = new int[capacity];
+        collisions = new int[capacity];
+        type = new byte[capacity];
+        inactive = new boolean[capacity];
+    }
+
+    /**
+     * Adds a newly fired projectile
+     * @param x The pixel x-coordinate of the projectile
+     * @param y The pixel y-coordinate of the projectile
+     * @param spriteSet The array of sprites for the projectile
+     * @param projectileType The type of the projectile
+     * @param direction The direction the projectile is fired in (can be null)
+     * @return The slot of the projectile
+     */
+    public int add(int x, int y, PImage[] spriteSet, ProjectileType projectileType, Direction direction) {
+        if (size == xPos.length) {
+            grow();
+        }
+
+        int slot = size++;
+        xPos[slot] = x;
+        yPos[slot] = y;
+        lastX[slot] = x;
+        lastY[slot] = y;
+        vector[slot] = direction == null ? NOVECTOR : (byte)direction.ordinal();
+        moveRemaining[slot] = 0;
+        collisions[slot] = projectileType.collisions;
+        type[slot] = (byte)projectileType.ordinal();
+        inactive[slot] = false;
+        typeSprites[projectileType.ordinal()] = spriteSet;
+
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the store
+     */
+    private void grow() {
+        int capacity = xPos.length * 2;
+        xPos = Arrays.copyOf(xPos, capacity);
+        yPos = Arrays.copyOf(yPos, capacity);
+        lastX = Arrays.copyOf(lastX, capacity);
+        lastY = Arrays.copyOf(lastY, capacity);
+        vector = Arrays.copyOf(vector, capacity);
+        moveRemaining = Arrays.copyOf(moveRemaining, capacity);
+        collisions = Arrays.copyOf(collisions, capacity);
+        type = Arrays.copyOf(type, capacity);
+        inactive = Arrays.copyOf(inactive, capacity);
+    }
+
+    /**
+     * Gets the number of active projectiles
+     * @return The number of projectiles in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every projectile
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Removes a projectile by moving the last projectile into its slot
+     * @param slot The slot of the projectile being removed
+     */
+    public void remove(int slot) {
+        int last = --size;
+        if (slot != last) {
+            xPos[slot] = xPos[last];
+            yPos[slot] = yPos[last];
+            lastX[slot] = lastX[last];
+            lastY[slot] = lastY[last];
+            vector[slot] = vector[last];
+            moveRemaining[slot] = moveRemaining[last];
+            collisions[slot] = collisions[last];
+            type[slot] = type[last];
+            inactive[slot] = inactive[last];
+        }
+    }
+
+    /**
+     * Marks a projectile to be removed by the next call to removeInactive
+     * @param slot The slot of the projectile
+     */
+    public void markInactive(int slot) {
+        inactive[slot] = true;
+    }
+
+    /**
+     * Removes every projectile marked as inactive
+     */
+    public void removeInactive() {
+        int slot = 0;
+        while (slot < size) {
+            if (inactive[slot]) {
+                remove(slot);
+            }
+            else {
+                slot++;
+            }
+        }
+    }
+
+    /**
+     * Gets the x-coordinate of a projectile in pixels
+     * @param slot The slot of the projectile
+     * @return The pixel x-coordinate of the projectile
+     */
+    public int getX(int slot) {
+        return xPos[slot];
+    }
+
+    /**
+     * Gets the y-coordinate of a projectile in pixels
+     * @param slot The slot of the projectile
+     * @return The pixel y-coordinate of the projectile
+     */
+    public int getY(int slot) {
+        return yPos[slot];
+    }
+
+    /**
+     * Gets the type of a projectile
+     * @param slot The slot of the projectile
+     * @return The type of the projectile
+     */
+    public ProjectileType getType(int slot) {
+        return types[type[slot]];
+    }
+
+    /**
+     * Gets the current direction of a projectile
+     * @param slot The slot of the projectile
+     * @return The direction of the projectile (returns null if it was fired without a direction)
+     */
+    public Direction getVector(int slot) {
+        return vector[slot] == NOVECTOR ? null : directions[vector[slot]];
+    }
+
+    /**
+     * Gets the collision type of a projectile
+     * @param slot The slot of the projectile
+     * @return The collision type of the projectile
+     */
+    public CollisionType getCollisionType(int slot) {
+        return types[type[slot]].collisionType;
+    }
+
+    /**
+     * Checks if a projectile collides with an object at the given position
+     * @param slot The slot of the projectile
+     * @param x The pixel x-coordinate of the other object
+     * @param y The pixel y-coordinate of the other object
+     * @return true if the objects are colliding (otherwise returns false)
+     */
+    public boolean checkCollision(int slot, int x, int y) {
+        return Math.abs(xPos[slot] - x) < App.SPRITESIZE && Math.abs(yPos[slot] - y) < App.SPRITESIZE;
+    }
+
+    /**
+     * Updates a projectile every frame
+     * @param slot The slot of the projectile
+     * @param tileMap The tile map for the level where the projectile exists
+     * @return true if the projectile is still active (false otherwise)
+     */
+    public boolean tick(int slot, TileGrid tileMap) {
+        ProjectileType projectileType = types[type[slot]];
+        lastX[slot] = xPos[slot];
+        lastY[slot] = yPos[slot];
+
+        // First checks if the projectile is currently moving
+        if (moveRemaining[slot] > 0) {
+            Direction direction = directions[vector[slot]];
+            xPos[slot] += projectileType.speed * direction.getX();
+            yPos[slot] += projectileType.speed * direction.getY();
+            moveRemaining[slot] -= projectileType.speed;
+            return true;
+        }
+
+        // A projectile fired without a direction can never move
+        if (vector[slot] == NOVECTOR) {
+            return false;
+        }
+
+        // Then checks if the projectile does not hit a tile
+        if (MovingObject.validateMove(xPos[slot], yPos[slot], directions[vector[slot]], projectileType.etherealness, tileMap)) {
+            moveRemaining[slot] = App.SPRITESIZE;
+            return true;
+        }
+
+        // Then checks if the projectile should be destroyed
+        return manageTileCollision(slot, tileMap);
+    }
+
+    /**
+     * Determines what happens when a projectile hits a tile
+     * @param slot The slot of the projectile
+     * @param tileMap The tile map for the level where the projectile exists
+     * @return true if the projectile should remain active (otherwise returns false)
+     */
+    private boolean manageTileCollision(int slot, TileGrid tileMap) {
+        ProjectileType projectileType = types[type[slot]];
+        Direction direction = directions[vector[slot]];
+
+        int tileCol = GameObject.pixelToGrid(xPos[slot]) + direction.getX();
+        int tileRow = GameObject.pixelToGrid(yPos[slot]) + direction.getY();
+
+        // A projectile leaving the map is destroyed
+        if (!tileMap.inBounds(tileRow, tileCol)) {
+            return false;
+        }
+        int strength = tileMap.getStrength(tileRow, tileCol);
+
+        boolean isDestruction = false;
+
+        // Checks if the projectile breaks the tile
+        if (projectileType.penetration >= strength && strength > 0) {
+            tileMap.destroyTile(tileRow, tileCol);
+            isDestruction = true;
+        }
+
+        // Check if the projectile still has remaining collisions
+        if (collisions[slot] > 0) {
+            collisions[slot]--;
+
+            // If the projectile can bounce, it flips direction
+            if (projectileType.bounce) {
+                vector[slot] = (byte)direction.flip().ordinal();
+                return tick(slot, tileMap);
+            }
+
+            // If the projectile destroys the brick, it moves into the brick
+            if (isDestruction) {
+                moveRemaining[slot] = App.SPRITESIZE;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Draws every projectile the camera can see into the app, part way through their last tick's movement
+     * @param app The application the projectiles exist in
+     * @param camera The camera deciding which part of the level is visible
+     * @param alpha How far the game is between the last tick and the next one (from 0 to 1)
+     */
+    public void draw(PApplet app, Camera camera, float alpha) {
+        for (int slot = 0; slot < size; slot++) {
+            PImage sprite = typeSprites[type[slot]][0];
+            int x = lastX[slot] + Math.round((xPos[slot] - lastX[slot]) * alpha);
+            int y = lastY[slot] + Math.round((yPos[slot] - lastY[slot]) * alpha);
+            if (sprite != null && camera.isVisible(x, y)) {
+                app.image(sprite, x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package gremlins;
+
+import processing.data.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays recordings without rendering, as fast as possible, to check that a build still plays them the same way
+ * The write mode stores a trace of state checksums for every recording, and the check mode compares a build against those traces
+ * Usage: ReplayVerifier (write|check) [--interval ticks] [--config path] [--threads count] traceDir recording...
+ * Recordings can be given as files or as directories containing .rec files
+ */
+public class ReplayVerifier {
+    public static final int DEFAULTINTERVAL = 60;
+
+    // Traces start with the bytes "GRT" followed by the format version
+    public static final int TRACEMAGIC = 0x47525401;
+    public static final String TRACEEXTENSION = ".trace";
+
+    /**
+     * The constructor for the ReplayVerifier class
+     */
+    private ReplayVerifier() {}
+
+    /**
+     * Replays a recording, computing a checksum after every interval of ticks and after the final tick
+     * @param replay The recording being replayed
+     * @param config The game configuration the recording was made with
+     * @param interval The number of ticks between checksums
+     * @return The ticks and checksums, as pairs of values
+     */
+    public static List<long[]> trace(InputReplay replay, JSONObject config, int interval) {
+        Engine engine = replay.createEngine(config, Sprites.headless());
+        Input input = new Input();
+        List<long[]> checkpoints = new ArrayList<long[]>();
+
+        while (replay.step(engine, input)) {
+            if (replay.getTick() % interval == 0 || replay.isFinished()) {
+                checkpoints.add(new long[] {replay.getTick(), StateChecksum.of(engine)});
+            }
+        }
+
+        return checkpoints;
+    }
+
+    /**
+     * Writes a trace file
+     * @param file The path of the trace
+     * @param interval The number of ticks between checksums
+     * @param checkpoints The ticks and checksums of the trace
+     * @throws IOException If the trace could not be written
+     */
+    public static void writeTrace(Path file, int interval, List<long[]> checkpoints) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(TRACEMAGIC);
+            out.writeInt(interval);
+            for (long[] checkpoint : checkpoints) {
+                out.writeLong(checkpoint[0]);
+                out.writeLong(checkpoint[1]);
+            }
+        }
+    }
+
+    /**
+     * Reads the interval of a trace file
+     * @param file The path of the trace
+     * @return The number of ticks between checksums
+     * @throws IOException If the file is not a trace
+     */
+    public static int readTraceInterval(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != TRACEMAGIC) {
+                throw new IOException("Not a trace: " + file);
+            }
+            return in.readInt();
+        }
+    }
+
+    /**
+     * Reads the checkpoints of a trace file
+     * @param file The path of the trace
+     * @return The ticks and checksums of the trace
+     * @throws IOException If the file is not a trace
+     */
+    public static List<long[]> readTrace(Path file) throws IOException {
+        List<long[]> checkpoints = new ArrayList<long[]>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != TRACEMAGIC) {
+                throw new IOException("Not a trace: " + file);
+            }
+            in.readInt();
+
+            while (true) {
+                long tick;
+                try {
+                    tick = in.readLong();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+                checkpoints.add(new long[] {tick, in.readLong()});
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Compares two traces of the same recording
+     * @param expected The trace of the reference build
+     * @param actual The trace of the build being checked
+     * @return A description of the first difference (returns null if the traces match)
+     */
+    public static String compare(List<long[]> expected, List<long[]> actual) {
+        long lastMatch = 0;
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            long[] a = expected.get(i);
+            long[] b = actual.get(i);
+            if (a[0] != b[0] || a[1] != b[1]) {
+                return "diverged at tick " + Math.min(a[0], b[0]) + " (last matching tick " + lastMatch + ")";
+            }
+            lastMatch = a[0];
+        }
+
+        if (expected.size() != actual.size()) {
+            return "ended at a different tick (last matching tick " + lastMatch + ")";
+        }
+        return null;
+    }
+
+    /**
+     * Gets the path of the trace for a recording
+     * @param traceDir The directory holding the traces
+     * @param recording The path of the recording
+     * @return The path of the recording's trace
+     */
+    public static Path tracePath(Path traceDir, Path recording) {
+        return traceDir.resolve(recording.getFileName() + TRACEEXTENSION);
+    }
+
+    /**
+     * Processes a single recording
+     * @param recording The path of the recording
+     * @param traceDir The directory holding the traces
+     * @param config The game configuration the recordings were made with
+     * @param isWriting true if the trace is written (otherwise the recording is checked against it)
+     * @param interval The number of ticks between checksums when writing
+     * @return The result for the recording (null if it matched or was written)
+     * @throws IOException If a file could not be read or written
+     */
+    private static String verify(Path recording, Path traceDir, JSONObject config, boolean isWriting, int interval) throws IOException {
+        Path trace = tracePath(traceDir, recording);
+        InputReplay replay = InputReplay.load(recording);
+
+        if (isWriting) {
+            writeTrace(trace, interval, trace(replay, config, interval));
+            return null;
+        }
+
+        if (!Files.exists(trace)) {
+            return "no trace found at " + trace;
+        }
+        return compare(readTrace(trace), trace(replay, config, readTraceInterval(trace)));
+    }
+
+    /**
+     * Finds every recording given on the command line
+     * @param paths The recording files and directories
+     * @return The recording files
+     * @throws IOException If a directory could not be listed
+     */
+    private static List<Path> findRecordings(List<String> paths) throws IOException {
+        List<Path> recordings = new ArrayList<Path>();
+        for (String path : paths) {
+            Path file = Paths.get(path);
+            if (Files.isDirectory(file)) {
+                try (Stream<Path> files = Files.list(file)) {
+                    recordings.addAll(files.filter(f -> f.toString().endsWith(".rec")).sorted().collect(Collectors.toList()));
+                }
+            }
+            else {
+                recordings.add(file);
+            }
+        }
+        return recordings;
+    }
+
+    /**
+     * Runs the verifier
+     * @param args The mode, options, trace directory and recordings
+     * @throws Exception If the recordings could not be read or the traces could not be written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || !(args[0].equals("write") || args[0].equals("check"))) {
+            System.err.println("Usage: ReplayVerifier (write|check) [--interval ticks] [--config path] [--threads count] traceDir recording...");
+            System.exit(2);
+        }
+
+        boolean isWriting = args[0].equals("write");
+        int interval = DEFAULTINTERVAL;
+        String configPath = App.configPath;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        int arg = 1;
+        while (arg < args.length && args[arg].startsWith("--")) {
+            switch (args[arg]) {
+                case "--interval":
+                    interval = Integer.parseInt(args[arg + 1]);
+                    break;
+                case "--config":
+                    configPath = args[arg + 1];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[arg + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[arg]);
+            }
+            arg += 2;
+        }
+
+        Path traceDir = Files.createDirectories(Paths.get(args[arg]));
+        List<Path> recordings = findRecordings(Arrays.asList(args).subList(arg + 1, args.length));
+        JSONObject config = Engine.loadConfig(configPath);
+
+        // Every recording runs in its own engine, so they are replayed in parallel
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (Path recording : recordings) {
+            final int traceInterval = interval;
+            results.add(pool.submit(() -> verify(recording, traceDir, config, isWriting, traceInterval)));
+        }
+
+        int failed = 0;
+        for (int i = 0; i < recordings.size(); i++) {
+            String result;
+            try {
+                result = results.get(i).get();
+            }
+            catch (ExecutionException e) {
+                result = "could not be replayed: " + e.getCause();
+            }
+
+            if (result != null) {
+                System.out.println("FAIL " + recordings.get(i) + ": " + result);
+                failed++;
+            }
+        }
+        pool.shutdown();
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s %d recordings in %.3f s, %d failed%n", isWriting ? "Traced" : "Checked", recordings.size(), elapsed, failed);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
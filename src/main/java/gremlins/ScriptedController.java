@@ -0,0 +1,32 @@
+package gremlins;
+
+/**
+ * Plays the inputs of a recording regardless of the game's seed. Once the recording ends, no keys are pressed
+ */
+public class ScriptedController implements PlayerController {
+    private InputReplay script;
+
+    /**
+     * The constructor for the ScriptedController class
+     * @param recording The contents of the recording whose inputs are played
+     */
+    public ScriptedController(byte[] recording) {
+        script = new InputReplay(recording);
+    }
+
+    /**
+     * Sets the player's input to the next recorded input
+     * @param engine The engine running the game
+     * @param input The input given to the engine for the next tick
+     */
+    @Override
+    public void update(Engine engine, Input input) {
+        if (!script.readInput(input)) {
+            input.setRightPressed(false);
+            input.setLeftPressed(false);
+            input.setUpPressed(false);
+            input.setDownPressed(false);
+            input.setCharPressed(null);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package gremlins;
+
+/**
+ * The outcome of a single simulated game
+ */
+public class SimulationResult {
+    private final long seed;
+    private final boolean isWon;
+    private final boolean isTimedOut;
+    private final long ticks;
+    private final int enemyDeaths;
+    private final int projectileDeaths;
+
+    /**
+     * The constructor for the SimulationResult class
+     * @param seed The seed of the game's random number generator
+     * @param isWon true if every level was exited
+     * @param isTimedOut true if the game was stopped before it ended
+     * @param ticks The number of ticks the game lasted
+     * @param enemyDeaths The number of times the player was killed by touching an enemy
+     * @param projectileDeaths The number of times the player was killed by an enemy projectile
+     */
+    public SimulationResult(long seed, boolean isWon, boolean isTimedOut, long ticks, int enemyDeaths, int projectileDeaths) {
+        this.seed = seed;
+        this.isWon = isWon;
+        this.isTimedOut = isTimedOut;
+        this.ticks = ticks;
+        this.enemyDeaths = enemyDeaths;
+        this.projectileDeaths = projectileDeaths;
+    }
+
+    /**
+     * Gets the seed of the game's random number generator
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Checks if the game was won
+     * @return true if every level was exited (otherwise returns false)
+     */
+    public boolean isWon() {
+        return isWon;
+    }
+
+    /**
+     * Checks if the game was stopped before it ended
+     * @return true if the game reached the tick limit (otherwise returns false)
+     */
+    public boolean isTimedOut() {
+        return isTimedOut;
+    }
+
+    /**
+     * Gets the length of the game
+     * @return The number of ticks the game lasted
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of times the player was killed by touching an enemy
+     * @return The number of deaths
+     */
+    public int getEnemyDeaths() {
+        return enemyDeaths;
+    }
+
+    /**
+     * Gets the number of times the player was killed by an enemy projectile
+     * @return The number of deaths
+     */
+    public int getProjectileDeaths() {
+        return projectileDeaths;
+    }
+}
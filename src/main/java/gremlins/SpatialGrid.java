@@ -0,0 +1,137 @@
+package gremlins;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid that buckets objects by the map cell they are in, so collision checks only consider nearby objects
+ * Objects are identified by their index in the list they come from
+ */
+public class SpatialGrid {
+    private static final int EMPTY = -1;
+
+    private int rows;
+    private int cols;
+
+    // Each cell holds a linked list of object indices in the order they were inserted
+    private int[] cellHeads;
+    private int[] cellTails;
+    private int[] next;
+
+    // Only the cells that were filled are cleared
+    private int[] touchedCells;
+    private int touchedCount = 0;
+
+    private int[] candidates;
+    private int candidateCount = 0;
+
+    /**
+     * The constructor for the SpatialGrid class
+     * @param rows The number of rows in the map
+     * @param cols The number of columns in the map
+     */
+    public SpatialGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+
+        cellHeads = new int[rows * cols];
+        cellTails = new int[rows * cols];
+        Arrays.fill(cellHeads, EMPTY);
+
+        next = new int[16];
+        touchedCells = new int[16];
+        candidates = new int[16];
+    }
+
+    /**
+     * Removes every object from the grid
+     */
+    public void clear() {
+        for (int i = 0; i < touchedCount; i++) {
+            cellHeads[touchedCells[i]] = EMPTY;
+        }
+        touchedCount = 0;
+    }
+
+    /**
+     * Adds an object to the grid. Objects should be inserted in increasing index order
+     * @param index The index of the object
+     * @param x The pixel x-coordinate of the object
+     * @param y The pixel y-coordinate of the object
+     */
+    public void insert(int index, int x, int y) {
+        if (index >= next.length) {
+            next = Arrays.copyOf(next, Math.max(index + 1, next.length * 2));
+        }
+        next[index] = EMPTY;
+
+        int cell = cellOf(GameObject.pixelToGrid(y), GameObject.pixelToGrid(x));
+        if (cellHeads[cell] == EMPTY) {
+            if (touchedCount == touchedCells.length) {
+                touchedCells = Arrays.copyOf(touchedCells, touchedCount * 2);
+            }
+            touchedCells[touchedCount++] = cell;
+            cellHeads[cell] = index;
+        }
+        else {
+            next[cellTails[cell]] = index;
+        }
+        cellTails[cell] = index;
+    }
+
+    /**
+     * Finds every object in the cell of the given position and its neighbouring cells
+     * Two objects closer than a sprite in both axes are never more than one cell apart, so no colliding object is missed
+     * @param x The pixel x-coordinate being checked
+     * @param y The pixel y-coordinate being checked
+     * @return The number of candidates found, in increasing index order (read with getCandidate)
+     */
+    public int query(int x, int y) {
+        candidateCount = 0;
+
+        int row = clamp(GameObject.pixelToGrid(y), rows);
+        int col = clamp(GameObject.pixelToGrid(x), cols);
+        for (int testRow = Math.max(row - 1, 0); testRow <= Math.min(row + 1, rows - 1); testRow++) {
+            for (int testCol = Math.max(col - 1, 0); testCol <= Math.min(col + 1, cols - 1); testCol++) {
+                for (int index = cellHeads[testRow * cols + testCol]; index != EMPTY; index = next[index]) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = index;
+                }
+            }
+        }
+
+        // Candidates are sorted so they are checked in the same order as a full scan of the list
+        Arrays.sort(candidates, 0, candidateCount);
+        return candidateCount;
+    }
+
+    /**
+     * Gets a candidate found by the last query
+     * @param i The position of the candidate in the query results
+     * @return The index of the candidate object
+     */
+    public int getCandidate(int i) {
+        return candidates[i];
+    }
+
+    /**
+     * Gets the cell of a grid position, placing positions outside the map in the nearest border cell
+     * @param row The row of the position
+     * @param col The column of the position
+     * @return The index of the cell
+     */
+    private int cellOf(int row, int col) {
+        return clamp(row, rows) * cols + clamp(col, cols);
+    }
+
+    /**
+     * Limits a grid coordinate to the map
+     * @param value The grid coordinate
+     * @param size The number of cells along the axis
+     * @return The coordinate inside the map
+     */
+    private static int clamp(int value, int size) {
+        return Math.min(Math.max(value, 0), size - 1);
+    }
+}
@@ -0,0 +1,212 @@
+package gremlins;
+
+import processing.core.PConstants;
+import processing.core.PImage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The collection of sprite sets used by every object in the game
+ */
+public class Sprites {
+    // The atlas and its index are packed from the individual images by the packSprites build task
+    public static final String ATLASIMAGE = "sprites_atlas.png";
+    public static final String ATLASINDEX = "sprites_atlas.txt";
+
+    // Every image used by the sprite sets
+    public static final String[] SPRITEFILES = {
+        "stonewall.png", "brickwall.png", "brickwall_destroyed0.png", "brickwall_destroyed1.png", "brickwall_destroyed2.png",
+        "brickwall_destroyed3.png", "door.png", "gremlin.png", "ghost.png", "fury.png", "wizard0.png", "wizard1.png",
+        "wizard2.png", "wizard3.png", "fireball.png", "slime.png", "thunderball.png", "hydroball.png", "ghostball.png",
+        "furyball.png", "thunderball_powerup.png", "hydroball_powerup.png"
+    };
+
+    public PImage[] brickwallSprites;
+    public PImage[] stonewallSprites;
+    public PImage[] doorSprites;
+
+    public PImage[] gremlinSprites;
+    public PImage[] ghostGremlinSprites;
+    public PImage[] furyGremlinSprites;
+
+    public PImage[] wizardSprites;
+
+    public PImage[] fireballSprites;
+    public PImage[] slimeballSprites;
+    public PImage[] thunderballSprites;
+    public PImage[] ghostballSprites;
+    public PImage[] hydroballSprites;
+    public PImage[] furyballSprites;
+
+    public PImage[] thunderballPowerupSprites;
+    public PImage[] hydroballPowerupSprites;
+
+    /**
+     * Loads every sprite set from the application's resources
+     * Sprites are sliced from the packed atlas when it exists, otherwise each image is loaded individually
+     * @return The loaded sprites
+     */
+    public static Sprites load() {
+        return fromImages(loadAtlas());
+    }
+
+    /**
+     * Builds every sprite set from images that were already decoded
+     * @param atlas The decoded images by file name (images missing from it are loaded individually)
+     * @return The sprites
+     */
+    public static Sprites fromImages(Map<String, PImage> atlas) {
+        Sprites sprites = new Sprites();
+
+        sprites.stonewallSprites = new PImage[] {loadSprite(atlas, "stonewall.png")};
+
+        PImage brickwall = loadSprite(atlas, "brickwall.png");
+        PImage brickwallDestroyed0 = loadSprite(atlas, "brickwall_destroyed0.png");
+        PImage brickwallDestroyed1 = loadSprite(atlas, "brickwall_destroyed1.png");
+        PImage brickwallDestroyed2 = loadSprite(atlas, "brickwall_destroyed2.png");
+        PImage brickwallDestroyed3 = loadSprite(atlas, "brickwall_destroyed3.png");
+        sprites.brickwallSprites = new PImage[] {brickwall, brickwallDestroyed0, brickwallDestroyed1, brickwallDestroyed2, brickwallDestroyed3};
+
+        sprites.doorSprites = new PImage[] {loadSprite(atlas, "door.png")};
+
+        sprites.gremlinSprites = new PImage[] {loadSprite(atlas, "gremlin.png")};
+        sprites.ghostGremlinSprites = new PImage[] {loadSprite(atlas, "ghost.png")};
+        sprites.furyGremlinSprites = new PImage[] {loadSprite(atlas, "fury.png")};
+
+        PImage wizardRight = loadSprite(atlas, "wizard1.png");
+        PImage wizardUp = loadSprite(atlas, "wizard2.png");
+        PImage wizardLeft = loadSprite(atlas, "wizard0.png");
+        PImage wizardDown = loadSprite(atlas, "wizard3.png");
+        sprites.wizardSprites = new PImage[] {wizardRight, wizardUp, wizardLeft, wizardDown};
+
+        sprites.fireballSprites = new PImage[] {loadSprite(atlas, "fireball.png")};
+        sprites.slimeballSprites = new PImage[] {loadSprite(atlas, "slime.png")};
+        sprites.thunderballSprites = new PImage[] {loadSprite(atlas, "thunderball.png")};
+        sprites.hydroballSprites = new PImage[] {loadSprite(atlas, "hydroball.png")};
+        sprites.ghostballSprites = new PImage[] {loadSprite(atlas, "ghostball.png")};
+        sprites.furyballSprites = new PImage[] {loadSprite(atlas, "furyball.png")};
+
+        sprites.thunderballPowerupSprites = new PImage[] {loadSprite(atlas, "thunderball_powerup.png"), null};
+        sprites.hydroballPowerupSprites = new PImage[] {loadSprite(atlas, "hydroball_powerup.png"), null};
+
+        return sprites;
+    }
+
+    /**
+     * Creates sprite sets without any images for running the game without rendering
+     * The sets keep their usual lengths since objects use them to track animation stages
+     * @return The empty sprites
+     */
+    public static Sprites headless() {
+        Sprites sprites = new Sprites();
+
+        sprites.stonewallSprites = new PImage[1];
+        sprites.brickwallSprites = new PImage[5];
+        sprites.doorSprites = new PImage[1];
+
+        sprites.gremlinSprites = new PImage[1];
+        sprites.ghostGremlinSprites = new PImage[1];
+        sprites.furyGremlinSprites = new PImage[1];
+
+        sprites.wizardSprites = new PImage[4];
+
+        sprites.fireballSprites = new PImage[1];
+        sprites.slimeballSprites = new PImage[1];
+        sprites.thunderballSprites = new PImage[1];
+        sprites.hydroballSprites = new PImage[1];
+        sprites.ghostballSprites = new PImage[1];
+        sprites.furyballSprites = new PImage[1];
+
+        sprites.thunderballPowerupSprites = new PImage[2];
+        sprites.hydroballPowerupSprites = new PImage[2];
+
+        return sprites;
+    }
+
+    /**
+     * Gets a single sprite, from the atlas if it contains the sprite
+     * @param atlas The sprites sliced from the atlas (null if there is no atlas)
+     * @param fileName The name of the sprite's image file
+     * @return The sprite
+     */
+    private static PImage loadSprite(Map<String, PImage> atlas, String fileName) {
+        if (atlas != null && atlas.containsKey(fileName)) {
+            return atlas.get(fileName);
+        }
+        return loadImage(fileName);
+    }
+
+    /**
+     * Checks if the packed atlas is available in the application's resources
+     * @return true if the atlas index exists (otherwise returns false)
+     */
+    public static boolean hasAtlas() {
+        return Sprites.class.getResource(ATLASINDEX) != null;
+    }
+
+    /**
+     * Decodes the atlas image once and slices it into a sprite for every entry of its index
+     * @return The sprites by file name (returns null if the atlas was not packed)
+     */
+    static Map<String, PImage> loadAtlas() {
+        InputStream indexStream = Sprites.class.getResourceAsStream(ATLASINDEX);
+        if (indexStream == null) {
+            return null;
+        }
+
+        PImage atlas = loadImage(ATLASIMAGE);
+        Map<String, PImage> sprites = new HashMap<String, PImage>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(indexStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] entry = line.trim().split(" ");
+                if (entry.length != 5) {
+                    continue;
+                }
+
+                int x = Integer.parseInt(entry[1]);
+                int y = Integer.parseInt(entry[2]);
+                int width = Integer.parseInt(entry[3]);
+                int height = Integer.parseInt(entry[4]);
+                sprites.put(entry[0], atlas.get(x, y, width, height));
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read the sprite atlas index", e);
+        }
+
+        return sprites;
+    }
+
+    /**
+     * Decodes an image from the application's resources
+     * Images are read as streams so that they can also be loaded from inside a jar
+     * @param fileName The name of the image file
+     * @return The decoded image
+     */
+    static PImage loadImage(String fileName) {
+        try (InputStream stream = Sprites.class.getResourceAsStream(fileName)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing sprite resource: " + fileName);
+            }
+
+            BufferedImage image = ImageIO.read(stream);
+            PImage sprite = new PImage(image.getWidth(), image.getHeight(), PConstants.ARGB);
+            image.getRGB(0, 0, sprite.width, sprite.height, sprite.pixels, 0, sprite.width);
+            sprite.updatePixels();
+            return sprite;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read sprite: " + fileName, e);
+        }
+    }
+}
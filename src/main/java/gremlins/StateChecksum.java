@@ -0,0 +1,83 @@
+package gremlins;
+
+import java.util.List;
+
+/**
+ * Computes a checksum of the game state, so that two runs of the same game can be compared tick by tick
+ * The checksum covers the level number, the player, the tile grid, the enemies and the projectiles
+ */
+public class StateChecksum {
+    // FNV-1a parameters, applied to whole values rather than bytes
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    /**
+     * The constructor for the StateChecksum class
+     */
+    private StateChecksum() {}
+
+    /**
+     * Computes the checksum of an engine's current state
+     * @param engine The engine being checked
+     * @return The checksum of the state
+     */
+    public static long of(Engine engine) {
+        long hash = OFFSET;
+        hash = mix(hash, engine.getLevelNumber());
+        hash = mix(hash, engine.isGameActive() ? 1 : 0);
+        hash = mix(hash, engine.isGameWon() ? 1 : 0);
+
+        Player player = engine.getPlayer();
+        hash = mix(hash, player.getX());
+        hash = mix(hash, player.getY());
+        hash = mix(hash, player.getLives());
+        hash = mix(hash, ordinal(player.getVector()));
+
+        Level level = engine.getLevel();
+        TileGrid tileMap = level.getMap();
+        for (int cell = 0; cell < tileMap.getRows() * tileMap.getCols(); cell++) {
+            Tile tile = tileMap.getTile(cell);
+            hash = mix(hash, tile == null ? TileGrid.EMPTY : tile.getStrength());
+            hash = mix(hash, tile != null && tile.isDestroyed() ? 1 : 0);
+        }
+
+        List<Enemy> enemies = level.getEnemies();
+        hash = mix(hash, enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            hash = mix(hash, enemy.getX());
+            hash = mix(hash, enemy.getY());
+            hash = mix(hash, ordinal(enemy.getVector()));
+        }
+
+        ProjectileStore projectiles = level.getProjectiles();
+        hash = mix(hash, projectiles.size());
+        for (int slot = 0; slot < projectiles.size(); slot++) {
+            hash = mix(hash, projectiles.getX(slot));
+            hash = mix(hash, projectiles.getY(slot));
+            hash = mix(hash, projectiles.getType(slot).ordinal());
+            hash = mix(hash, ordinal(projectiles.getVector(slot)));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Adds a value to the checksum
+     * @param hash The checksum so far
+     * @param value The value being added
+     * @return The new checksum
+     */
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * PRIME;
+    }
+
+    /**
+     * Gets the ordinal of a direction
+     * @param direction The direction (can be null)
+     * @return The ordinal of the direction (returns -1 if there is no direction)
+     */
+    private static int ordinal(Direction direction) {
+        return direction == null ? -1 : direction.ordinal();
+    }
+}
@@ -0,0 +1,31 @@
+package gremlins;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The flight recorder event for a killed enemy teleporting away from the player
+ */
+@Name("gremlins.Teleport")
+@Label("Enemy Teleport")
+@Category("Gremlins")
+@Description("A killed enemy moving to an empty tile away from the player")
+public class TeleportEvent extends Event {
+    @Label("Enemy")
+    public String enemy;
+
+    @Label("Attempts")
+    @Description("The number of random tiles tried before one far enough away was found")
+    public int attempts;
+
+    @Label("Scanned")
+    @Description("Whether the tiles near the player were scanned after the random draws missed")
+    public boolean scanned;
+
+    @Label("Far Enough")
+    @Description("Whether the tile reached was at least the teleport range from the player")
+    public boolean far;
+}
@@ -0,0 +1,71 @@
+package gremlins;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The flight recorder event for a game tick, with the time taken by each phase and the entities in the level
+ * Ticks are frequent, so their stack traces are not recorded
+ */
+@Name("gremlins.Tick")
+@Label("Game Tick")
+@Category("Gremlins")
+@Description("A single tick of the game engine")
+@StackTrace(false)
+public class TickEvent extends Event {
+    @Label("Level")
+    public int levelNumber;
+
+    @Label("Enemies")
+    public int enemies;
+
+    @Label("Projectiles")
+    public int projectiles;
+
+    @Label("Projectiles Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long projectilesTime;
+
+    @Label("Broken Tiles Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long brokenTilesTime;
+
+    @Label("Flow Field Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long flowFieldTime;
+
+    @Label("Tile Event Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long tileEventTime;
+
+    @Label("Collisions Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long collisionsTime;
+
+    @Label("Enemies Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long enemiesTime;
+
+    @Label("Player Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    public long playerTime;
+
+    /**
+     * Copies the phase times of the tick that just finished
+     * @param profiler The profiler that timed the tick
+     */
+    public void setPhaseTimes(FrameProfiler profiler) {
+        projectilesTime = profiler.getLastTime(FramePhase.PROJECTILES);
+        brokenTilesTime = profiler.getLastTime(FramePhase.BROKENTILES);
+        flowFieldTime = profiler.getLastTime(FramePhase.FLOWFIELD);
+        tileEventTime = profiler.getLastTime(FramePhase.TILEEVENT);
+        collisionsTime = profiler.getLastTime(FramePhase.COLLISIONS);
+        enemiesTime = profiler.getLastTime(FramePhase.ENEMIES);
+        playerTime = profiler.getLastTime(FramePhase.PLAYER);
+    }
+}
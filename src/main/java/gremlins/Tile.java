@@ -39,9 +39,32 @@ public class Tile extends GameObject {
 
     /**
      * Marks the tile as destroyed
+     * @return true if the tile was not already destroyed (otherwise returns false)
      */
-    public void destroy() {
+    public boolean destroy() {
+        if (isDestroyed) {
+            return false;
+        }
+
         isDestroyed = true;
+        return true;
+    }
+
+    /**
+     * Checks if the tile has been destroyed
+     * @return true if the tile is undergoing its destroy sequence (otherwise returns false)
+     */
+    public boolean isDestroyed() {
+        return isDestroyed;
+    }
+
+    /**
+     * Returns the tile to the state it was created in
+     */
+    public void restore() {
+        isDestroyed = false;
+        spriteTimer = 0;
+        updateSprite(0);
     }
 
     /**
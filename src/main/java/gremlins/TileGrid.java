@@ -0,0 +1,492 @@
+package gremlins;
+
+import java.util.Arrays;
+
+/**
+ * The grid of tiles that makes up a level's map
+ * Alongside the tiles, the grid keeps the strength of every tile so that movement checks never need to visit the tiles
+ * Tiles are stored in square chunks that are only created once a tile is placed inside them, so large open maps stay small
+ */
+public class TileGrid {
+    // The strength stored for cells without a tile
+    public static final byte EMPTY = Byte.MIN_VALUE;
+
+    // Chunks are CHUNKSIZE cells wide and high
+    public static final int CHUNKSHIFT = 5;
+    public static final int CHUNKSIZE = 1 << CHUNKSHIFT;
+    private static final int CHUNKMASK = CHUNKSIZE - 1;
+
+    private int rows;
+    private int cols;
+    private int chunkRows;
+    private int chunkCols;
+
+    // Each chunk holds its cells in row-major order (null if the chunk has no tiles)
+    private Tile[][] tileChunks;
+    private byte[][] strengthChunks;
+    private boolean[][] dirtyChunks;
+
+    // The cells whose tiles are undergoing their destroy sequence
+    private int[] destroyingCells = new int[16];
+    private int destroyingCount = 0;
+
+    // The cells whose tiles were removed during the last call to progressDestruction
+    private int[] removedCells = new int[16];
+    private int removedCount = 0;
+
+    // The cells whose tiles were removed since the grid was cleared or the destruction was last ended
+    private int[] lostCells = new int[16];
+    private int lostCount = 0;
+
+    // The cells whose appearance changed since the renderer last drew them
+    private int[] dirtyCells = new int[16];
+    private int dirtyCount = 0;
+
+    // The number of cells without a tile in each chunk, summed in a Fenwick tree so the nth empty cell is found quickly
+    private int[] chunkEmptyCounts;
+    private int[] emptyTree;
+    private int emptyCount = 0;
+
+    // Increases every time the grid is cleared or removed tiles are put back, so the whole map is searched and redrawn
+    private int generation = 0;
+
+    /**
+     * The constructor for the TileGrid class. The grid starts without any tiles
+     * @param rows The number of rows in the map
+     * @param cols The number of columns in the map
+     */
+    public TileGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        chunkRows = (rows + CHUNKMASK) >> CHUNKSHIFT;
+        chunkCols = (cols + CHUNKMASK) >> CHUNKSHIFT;
+
+        int chunkCount = chunkRows * chunkCols;
+        tileChunks = new Tile[chunkCount][];
+        strengthChunks = new byte[chunkCount][];
+        dirtyChunks = new boolean[chunkCount][];
+        chunkEmptyCounts = new int[chunkCount];
+        emptyTree = new int[chunkCount + 1];
+        clear();
+    }
+
+    /**
+     * Gets the number of rows in the map
+     * @return The number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns in the map
+     * @return The number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Checks if a cell is inside the map
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return true if the cell is inside the map (otherwise returns false)
+     */
+    public boolean inBounds(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    /**
+     * Finds the chunk holding a cell
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The index of the chunk
+     */
+    private int chunkOf(int row, int col) {
+        return (row >> CHUNKSHIFT) * chunkCols + (col >> CHUNKSHIFT);
+    }
+
+    /**
+     * Finds the position of a cell inside its chunk
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The position of the cell in its chunk
+     */
+    private static int offsetOf(int row, int col) {
+        return ((row & CHUNKMASK) << CHUNKSHIFT) | (col & CHUNKMASK);
+    }
+
+    /**
+     * Gets the tile in a cell
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The tile in the cell (returns null if the cell has no tile)
+     */
+    public Tile getTile(int row, int col) {
+        Tile[] chunk = tileChunks[chunkOf(row, col)];
+        return chunk == null ? null : chunk[offsetOf(row, col)];
+    }
+
+    /**
+     * Gets the tile in a cell
+     * @param cell The index of the cell (row * cols + col)
+     * @return The tile in the cell (returns null if the cell has no tile)
+     */
+    public Tile getTile(int cell) {
+        return getTile(cell / cols, cell % cols);
+    }
+
+    /**
+     * Gets the strength of the tile in a cell
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The strength of the tile (returns EMPTY if the cell has no tile)
+     */
+    public int getStrength(int row, int col) {
+        byte[] chunk = strengthChunks[chunkOf(row, col)];
+        return chunk == null ? EMPTY : chunk[offsetOf(row, col)];
+    }
+
+    /**
+     * Checks if a cell has no tile
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return true if the cell has no tile (otherwise returns false)
+     */
+    public boolean isEmpty(int row, int col) {
+        return getStrength(row, col) == EMPTY;
+    }
+
+    /**
+     * Places a tile in a cell, or removes the cell's tile
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @param tile The new tile (null removes the current tile)
+     */
+    public void setTile(int row, int col, Tile tile) {
+        int chunk = chunkOf(row, col);
+        if (tileChunks[chunk] == null) {
+            // A chunk is only created once it holds a tile
+            if (tile == null) {
+                return;
+            }
+            tileChunks[chunk] = new Tile[CHUNKSIZE * CHUNKSIZE];
+            strengthChunks[chunk] = new byte[CHUNKSIZE * CHUNKSIZE];
+            dirtyChunks[chunk] = new boolean[CHUNKSIZE * CHUNKSIZE];
+            Arrays.fill(strengthChunks[chunk], EMPTY);
+        }
+
+        int offset = offsetOf(row, col);
+        Tile previous = tileChunks[chunk][offset];
+        if (previous == null && tile != null) {
+            changeEmptyCount(chunk, -1);
+        }
+        else if (previous != null && tile == null) {
+            changeEmptyCount(chunk, 1);
+            if (lostCount == lostCells.length) {
+                lostCells = Arrays.copyOf(lostCells, lostCount * 2);
+            }
+            lostCells[lostCount++] = row * cols + col;
+        }
+
+        tileChunks[chunk][offset] = tile;
+        strengthChunks[chunk][offset] = tile == null ? EMPTY : (byte)tile.getStrength();
+        markDirty(row, col);
+    }
+
+    /**
+     * Destroys the tile in a cell, starting its destroy sequence
+     * @param row The row of the cell
+     * @param col The column of the cell
+     */
+    public void destroyTile(int row, int col) {
+        if (getTile(row, col).destroy()) {
+            if (destroyingCount == destroyingCells.length) {
+                destroyingCells = Arrays.copyOf(destroyingCells, destroyingCount * 2);
+            }
+            destroyingCells[destroyingCount++] = row * cols + col;
+            markDirty(row, col);
+        }
+    }
+
+    /**
+     * Gets a cell with a tile undergoing its destroy sequence
+     * @param i The position of the cell in the destroying list
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getDestroyingCell(int i) {
+        return destroyingCells[i];
+    }
+
+    /**
+     * Gets the number of tiles undergoing their destroy sequence
+     * @return The number of tiles being destroyed
+     */
+    public int getDestroyingCount() {
+        return destroyingCount;
+    }
+
+    /**
+     * Advances the destroy sequence of every destroyed tile, removing tiles whose destruction is complete
+     */
+    public void progressDestruction() {
+        removedCount = 0;
+        int i = 0;
+        while (i < destroyingCount) {
+            int cell = destroyingCells[i];
+            int row = cell / cols;
+            int col = cell % cols;
+
+            // Removes the tile if its destruction is complete
+            if (!getTile(row, col).tick()) {
+                setTile(row, col, null);
+                if (removedCount == removedCells.length) {
+                    removedCells = Arrays.copyOf(removedCells, removedCount * 2);
+                }
+                removedCells[removedCount++] = cell;
+                destroyingCells[i] = destroyingCells[--destroyingCount];
+            }
+            else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tiles removed during the last call to progressDestruction
+     * @return The number of removed tiles
+     */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    /**
+     * Gets a cell whose tile was removed during the last call to progressDestruction
+     * @param i The position of the cell in the removed list
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getRemovedCell(int i) {
+        return removedCells[i];
+    }
+
+    /**
+     * Gets the number of tiles removed since the grid was cleared or the destruction was last ended
+     * @return The number of removed tiles
+     */
+    public int getLostCount() {
+        return lostCount;
+    }
+
+    /**
+     * Gets a cell whose tile was removed since the grid was cleared or the destruction was last ended
+     * @param i The position of the cell in the lost list
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getLostCell(int i) {
+        return lostCells[i];
+    }
+
+    /**
+     * Stops every destroy sequence and forgets the removed tiles. Called once the tiles have been put back
+     */
+    public void endDestruction() {
+        // Cells that were opened have been closed again, which distances to the player cannot follow step by step
+        if (lostCount > 0) {
+            generation++;
+        }
+        destroyingCount = 0;
+        removedCount = 0;
+        lostCount = 0;
+    }
+
+    /**
+     * Removes every tile from the grid. Only the chunks are visited, not every cell
+     * Chunks that were created are emptied rather than discarded, so clearing a grid again allocates nothing
+     */
+    public void clear() {
+        for (int chunk = 0; chunk < tileChunks.length; chunk++) {
+            if (tileChunks[chunk] != null) {
+                Arrays.fill(tileChunks[chunk], null);
+                Arrays.fill(strengthChunks[chunk], EMPTY);
+                Arrays.fill(dirtyChunks[chunk], false);
+            }
+        }
+
+        // Every cell inside the map is empty
+        for (int chunk = 0; chunk < chunkEmptyCounts.length; chunk++) {
+            int chunkHeight = Math.min(CHUNKSIZE, rows - (chunk / chunkCols) * CHUNKSIZE);
+            int chunkWidth = Math.min(CHUNKSIZE, cols - (chunk % chunkCols) * CHUNKSIZE);
+            chunkEmptyCounts[chunk] = chunkHeight * chunkWidth;
+        }
+        buildEmptyTree();
+
+        destroyingCount = 0;
+        removedCount = 0;
+        lostCount = 0;
+        dirtyCount = 0;
+        generation++;
+    }
+
+    /**
+     * Rebuilds the Fenwick tree of empty cells from the empty count of every chunk
+     */
+    private void buildEmptyTree() {
+        emptyCount = 0;
+        for (int i = 1; i < emptyTree.length; i++) {
+            emptyTree[i] = chunkEmptyCounts[i - 1];
+            emptyCount += chunkEmptyCounts[i - 1];
+        }
+        for (int i = 1; i < emptyTree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < emptyTree.length) {
+                emptyTree[parent] += emptyTree[i];
+            }
+        }
+    }
+
+    /**
+     * Changes the number of empty cells in a chunk
+     * @param chunk The index of the chunk
+     * @param change The number of cells that became empty (negative if cells were filled)
+     */
+    private void changeEmptyCount(int chunk, int change) {
+        chunkEmptyCounts[chunk] += change;
+        emptyCount += change;
+        for (int i = chunk + 1; i < emptyTree.length; i += i & -i) {
+            emptyTree[i] += change;
+        }
+    }
+
+    /**
+     * Gets the number of cells without a tile
+     * @return The number of empty cells
+     */
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Gets a cell without a tile. Empty cells are ordered chunk by chunk, and the order changes as tiles are placed and removed
+     * Finding the chunk takes logarithmic time, and at most one chunk is searched for the cell
+     * @param i The position of the cell in the empty list
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getEmptyCell(int i) {
+        // Descends the Fenwick tree to the chunk holding the cell
+        int chunk = 0;
+        for (int step = Integer.highestOneBit(emptyTree.length - 1); step > 0; step >>= 1) {
+            if (chunk + step < emptyTree.length && emptyTree[chunk + step] <= i) {
+                chunk += step;
+                i -= emptyTree[chunk];
+            }
+        }
+
+        int firstRow = (chunk / chunkCols) * CHUNKSIZE;
+        int firstCol = (chunk % chunkCols) * CHUNKSIZE;
+        int chunkWidth = Math.min(CHUNKSIZE, cols - firstCol);
+
+        // A chunk without tiles is entirely empty
+        if (tileChunks[chunk] == null) {
+            return (firstRow + i / chunkWidth) * cols + firstCol + i % chunkWidth;
+        }
+
+        int chunkHeight = Math.min(CHUNKSIZE, rows - firstRow);
+        for (int row = firstRow; row < firstRow + chunkHeight; row++) {
+            for (int col = firstCol; col < firstCol + chunkWidth; col++) {
+                if (tileChunks[chunk][offsetOf(row, col)] == null && i-- == 0) {
+                    return row * cols + col;
+                }
+            }
+        }
+        throw new IllegalStateException("Empty cell count does not match the map");
+    }
+
+    /**
+     * Finds the position of an empty cell in the empty list, so getEmptyCell(getEmptyRank(row, col)) is the cell itself
+     * Summing the earlier chunks takes logarithmic time, and at most one chunk is searched for the cell
+     * @param row The row of the cell (the cell must have no tile)
+     * @param col The column of the cell (the cell must have no tile)
+     * @return The position of the cell in the empty list
+     */
+    public int getEmptyRank(int row, int col) {
+        // Counts the empty cells in every earlier chunk
+        int chunk = chunkOf(row, col);
+        int rank = 0;
+        for (int i = chunk; i > 0; i -= i & -i) {
+            rank += emptyTree[i];
+        }
+
+        int firstRow = (chunk / chunkCols) * CHUNKSIZE;
+        int firstCol = (chunk % chunkCols) * CHUNKSIZE;
+        int chunkWidth = Math.min(CHUNKSIZE, cols - firstCol);
+
+        // A chunk without tiles is entirely empty
+        if (tileChunks[chunk] == null) {
+            return rank + (row - firstRow) * chunkWidth + col - firstCol;
+        }
+
+        for (int testRow = firstRow; testRow <= row; testRow++) {
+            int lastCol = testRow == row ? col : firstCol + chunkWidth;
+            for (int testCol = firstCol; testCol < lastCol; testCol++) {
+                if (tileChunks[chunk][offsetOf(testRow, testCol)] == null) {
+                    rank++;
+                }
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Records that the appearance of a cell changed. The cell's chunk must hold tiles
+     * @param row The row of the cell
+     * @param col The column of the cell
+     */
+    private void markDirty(int row, int col) {
+        boolean[] dirty = dirtyChunks[chunkOf(row, col)];
+        int offset = offsetOf(row, col);
+        if (!dirty[offset]) {
+            dirty[offset] = true;
+            if (dirtyCount == dirtyCells.length) {
+                dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+            }
+            dirtyCells[dirtyCount++] = row * cols + col;
+        }
+    }
+
+    /**
+     * Gets the number of cells whose appearance changed since the last call to clearDirty
+     * @return The number of changed cells
+     */
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Gets a cell whose appearance changed
+     * @param i The position of the cell in the changed list
+     * @return The index of the cell (row * cols + col)
+     */
+    public int getDirtyCell(int i) {
+        return dirtyCells[i];
+    }
+
+    /**
+     * Forgets every changed cell, once they have been redrawn
+     */
+    public void clearDirty() {
+        for (int i = 0; i < dirtyCount; i++) {
+            int row = dirtyCells[i] / cols;
+            int col = dirtyCells[i] % cols;
+            dirtyChunks[chunkOf(row, col)][offsetOf(row, col)] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Gets the number of times the grid has been cleared or had removed tiles put back
+     * @return The generation of the grid
+     */
+    public int getGeneration() {
+        return generation;
+    }
+}
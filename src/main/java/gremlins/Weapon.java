@@ -2,8 +2,6 @@ package gremlins;
 
 import processing.core.PImage;
 
-import java.util.List;
-
 /**
  * The weapons that the player and enemies use to fire projectiles
  */
@@ -38,17 +36,17 @@ public class Weapon {
      * @param xPos The pixel x-coordinate of the weapon
      * @param yPos The pixel y-coordinate of the weapon
      * @param direction The direction of the fired projectile
-     * @param projectiles The list of active projectiles of the level
+     * @param projectiles The store of active projectiles of the level
      * @return true if the weapon is fired (otherwise returns false)
      */
-    public boolean fire(int xPos, int yPos, Direction direction, List<Projectile> projectiles) {
+    public boolean fire(int xPos, int yPos, Direction direction, ProjectileStore projectiles) {
         // Only fires if the cooldown has elapsed
         if (currentCooldown <= 0) {
 
             // Fires from the centre of a tile
             int newXPos = xPos - xPos % App.SPRITESIZE;
             int newYPos = yPos - yPos % App.SPRITESIZE;
-            projectiles.add(new Projectile(newXPos, newYPos, spriteSet, type, direction));
+            projectiles.add(newXPos, newYPos, spriteSet, type, direction);
             currentCooldown = cooldown;
 
             return true;
@@ -66,6 +64,13 @@ public class Weapon {
         }
     }
 
+    /**
+     * Makes the weapon ready to fire immediately
+     */
+    public void resetCooldown() {
+        currentCooldown = 0;
+    }
+
     /**
      * Gets the weapon's current cooldown
      * @return The current cooldown of the weapon
@@ -2,13 +2,31 @@ package gremlins;
 
 import processing.core.PApplet;
 import processing.core.PImage;
+import processing.data.JSONObject;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 public class TestCases {
     App app;
     Player player;
@@ -23,7 +41,8 @@ public class TestCases {
         app.loop();
         PApplet.runSketch(new String[] { "App" }, app);
         app.setup();
-        PImage sprite = app.brickwallSprites[1];
+        app.awaitLoading();
+        PImage sprite = app.getSprites().brickwallSprites[1];
         assertNotNull(sprite);
         testSprites = new PImage[] {null, sprite, null, null, null};
         
@@ -104,7 +123,7 @@ public class TestCases {
     // Performs tests on player movement
     @Test
     public void moveTest() {
-        Tile[][] tileMap = level.getMap();
+        TileGrid tileMap = level.getMap();
 
         // Tests that a player outside the map cannot move unless forced
         // Also tests that a player cannot move with a null vector
@@ -134,7 +153,7 @@ public class TestCases {
     @Test
     public void enemyTest() {
         Random rand = app.getRandom();
-        Tile[][] tileMap = level.getMap();
+        TileGrid tileMap = level.getMap();
 
         Enemy fury1 = new FuryGremlin(4 * App.SPRITESIZE, 2 * App.SPRITESIZE, testSprites, null, rand, tileMap);
         Enemy fury2 = new FuryGremlin(2 * App.SPRITESIZE, 12 * App.SPRITESIZE, testSprites, null, rand, tileMap);
@@ -181,13 +200,13 @@ public class TestCases {
     // Performs tests on a powerup inside the map
     @Test
     public void mapPowerupTest() {
-        Tile[][] tileMap = level.getMap();
+        TileGrid tileMap = level.getMap();
 
         // Moves the player to a powerup and checks that they see the powerup
         player.setCoords(9 * App.SPRITESIZE, 7 * App.SPRITESIZE);
-        Powerup powerup = (Powerup)tileMap[7][9];
-        assertNotNull(tileMap[7][9]);
-        assertEquals(TileType.POWERUP, tileMap[7][9].getTileType());
+        Powerup powerup = (Powerup)tileMap.getTile(7, 9);
+        assertNotNull(tileMap.getTile(7, 9));
+        assertEquals(TileType.POWERUP, tileMap.getTile(7, 9).getTileType());
         player.resetMove();
         assertTrue(level.checkTileEvent());
         assertNotNull(powerup.getPowerupType());
@@ -241,45 +260,39 @@ public class TestCases {
     public void collisionTest() {
         // Tests player collision with enemy (player should lose a life)
         Random rand = app.getRandom();
-        Tile[][] tileMap = level.getMap();
+        TileGrid tileMap = level.getMap();
         Enemy enemy = new GreenGremlin(player.getX(), player.getY(), testSprites, null, rand, tileMap);
         level.getEnemies().add(enemy);
         level.manageCollisions();
         assertEquals(2, player.getLives());
 
         // Tests player projectile collision (nothing should happen)
-        Projectile p1 = new Projectile(34 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST);
-        Projectile p2 = new Projectile(34 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST);
-        level.getProjectiles().add(p1);
-        level.getProjectiles().add(p2);
+        ProjectileStore projectiles = level.getProjectiles();
+        projectiles.add(34 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST);
+        projectiles.add(34 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST);
         level.manageCollisions();
-        assertTrue(level.getProjectiles().contains(p1));
-        assertTrue(level.getProjectiles().contains(p2));
+        assertEquals(2, projectiles.size());
 
         // Tests player projectile with enemy projectile collision (all colliding projectiles should be destroyed)
-        Projectile p3 = new Projectile(33 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.SLIMEBALL, Direction.EAST);
-        Projectile p4 = new Projectile(34 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.SLIMEBALL, Direction.EAST);
-        level.getProjectiles().add(p3);
-        level.getProjectiles().add(p4);
+        projectiles.add(33 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.SLIMEBALL, Direction.EAST);
+        projectiles.add(34 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.SLIMEBALL, Direction.EAST);
         level.manageCollisions();
-        assertFalse(level.getProjectiles().contains(p1));
-        assertFalse(level.getProjectiles().contains(p2));
-        assertTrue(level.getProjectiles().contains(p3));
-        assertFalse(level.getProjectiles().contains(p4));
+        assertEquals(1, projectiles.size());
+        assertEquals(ProjectileType.SLIMEBALL, projectiles.getType(0));
+        assertEquals(33 * App.SPRITESIZE, projectiles.getX(0));
 
         // Tests player projectile with enemy collision (enemy should teleport)
         Enemy dyingEnemy = new GreenGremlin(1 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, null, rand, tileMap);
         level.getEnemies().add(dyingEnemy);
-        Projectile pEnemyKill = new Projectile(1 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST);
-        level.getProjectiles().add(pEnemyKill);
+        projectiles.add(1 * App.SPRITESIZE, 1 * App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST);
         level.manageCollisions();
-        assertFalse(level.getProjectiles().contains(pEnemyKill));
+        assertEquals(1, projectiles.size());
+        assertEquals(ProjectileType.SLIMEBALL, projectiles.getType(0));
 
         // Tests enemy projectile with player collision (player should lose a life)
-        Projectile pPlayerKill = new Projectile(player.getX(), player.getY(), testSprites, ProjectileType.SLIMEBALL, Direction.EAST);
-        level.getProjectiles().add(pPlayerKill);
+        projectiles.add(player.getX(), player.getY(), testSprites, ProjectileType.SLIMEBALL, Direction.EAST);
         level.manageCollisions();
-        assertFalse(level.getProjectiles().contains(pPlayerKill));
+        assertEquals(0, projectiles.size());
         assertEquals(1, player.getLives());
     }
 
@@ -350,4 +363,821 @@ public class TestCases {
         }
         assertFalse(level.reset());
     }
+
+    // Tests that the collision grid finds every colliding object in index order
+    @Test
+    public void spatialGridTest() {
+        Random rand = new Random(1);
+        SpatialGrid grid = new SpatialGrid(App.ROWS, App.COLS);
+        int[] xs = new int[200];
+        int[] ys = new int[200];
+
+        // Places objects anywhere in the map, including mid-move positions
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = rand.nextInt(App.COLS * App.SPRITESIZE);
+            ys[i] = rand.nextInt(App.ROWS * App.SPRITESIZE);
+            grid.insert(i, xs[i], ys[i]);
+        }
+
+        for (int i = 0; i < xs.length; i++) {
+            int candidateCount = grid.query(xs[i], ys[i]);
+
+            // Candidates are in increasing index order
+            for (int c = 1; c < candidateCount; c++) {
+                assertTrue(grid.getCandidate(c - 1) < grid.getCandidate(c));
+            }
+
+            // Every object that overlaps the queried object is a candidate
+            for (int j = 0; j < xs.length; j++) {
+                if (Math.abs(xs[i] - xs[j]) < App.SPRITESIZE && Math.abs(ys[i] - ys[j]) < App.SPRITESIZE) {
+                    boolean found = false;
+                    for (int c = 0; c < candidateCount; c++) {
+                        found = found || grid.getCandidate(c) == j;
+                    }
+                    assertTrue(found);
+                }
+            }
+        }
+
+        // Clearing the grid removes every object
+        grid.clear();
+        assertEquals(0, grid.query(xs[0], ys[0]));
+    }
+
+    // Performs tests on the projectile store
+    @Test
+    public void projectileStoreTest() {
+        // Adds more projectiles than the initial capacity
+        ProjectileStore projectiles = new ProjectileStore(2);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, projectiles.add(i * App.SPRITESIZE, App.SPRITESIZE, testSprites, ProjectileType.FIREBALL, Direction.EAST));
+        }
+        assertEquals(5, projectiles.size());
+
+        // Removing a projectile moves the last projectile into its slot
+        projectiles.remove(1);
+        assertEquals(4, projectiles.size());
+        assertEquals(4 * App.SPRITESIZE, projectiles.getX(1));
+
+        // Marked projectiles are only removed together
+        projectiles.markInactive(0);
+        projectiles.markInactive(3);
+        assertEquals(4, projectiles.size());
+        projectiles.removeInactive();
+        assertEquals(2, projectiles.size());
+
+        // A projectile fired without a direction is destroyed on its first update
+        projectiles.clear();
+        projectiles.add(App.SPRITESIZE, App.SPRITESIZE, testSprites, ProjectileType.FURYBALL, null);
+        assertNull(projectiles.getVector(0));
+        assertFalse(projectiles.tick(0, level.getMap()));
+    }
+
+    // Tests that only destroyed tiles are progressed and that they are removed once destroyed
+    @Test
+    public void brokenTileTest() {
+        TileGrid tileMap = level.getMap();
+
+        // Finds a brick in the map and destroys it twice (it should only be tracked once)
+        int brickRow = -1;
+        int brickCol = -1;
+        for (int row = 0; row < tileMap.getRows() && brickRow < 0; row++) {
+            for (int col = 0; col < tileMap.getCols(); col++) {
+                Tile tile = tileMap.getTile(row, col);
+                if (tile != null && tile.getTileType() == TileType.BRICKWALL) {
+                    brickRow = row;
+                    brickCol = col;
+                    break;
+                }
+            }
+        }
+        assertTrue(brickRow >= 0);
+        assertEquals(0, tileMap.getDestroyingCount());
+        tileMap.destroyTile(brickRow, brickCol);
+        tileMap.destroyTile(brickRow, brickCol);
+        assertEquals(1, tileMap.getDestroyingCount());
+
+        // The brick blocks movement until its destroy sequence is complete
+        for (int tick = 0; tick < App.DESTORYFRAMES * 4; tick++) {
+            level.progressBrokenTiles();
+            assertFalse(tileMap.isEmpty(brickRow, brickCol));
+        }
+        level.progressBrokenTiles();
+        assertTrue(tileMap.isEmpty(brickRow, brickCol));
+        assertNull(tileMap.getTile(brickRow, brickCol));
+        assertEquals(0, tileMap.getDestroyingCount());
+    }
+
+    // Tests that the map only reports the cells that changed since it was last drawn
+    @Test
+    public void dirtyCellTest() {
+        TileGrid tileMap = new TileGrid(3, 4);
+        int generation = tileMap.getGeneration();
+        assertEquals(0, tileMap.getDirtyCount());
+
+        // Placing and destroying the same brick marks its cell once
+        tileMap.setTile(1, 2, new Tile(40, 20, testSprites, TileType.BRICKWALL));
+        tileMap.destroyTile(1, 2);
+        assertEquals(1, tileMap.getDirtyCount());
+        assertEquals(6, tileMap.getDirtyCell(0));
+        tileMap.clearDirty();
+        assertEquals(0, tileMap.getDirtyCount());
+
+        // The cell changes again once the brick is removed
+        for (int tick = 0; tick <= App.DESTORYFRAMES * 4; tick++) {
+            tileMap.progressDestruction();
+        }
+        assertTrue(tileMap.isEmpty(1, 2));
+        assertEquals(1, tileMap.getDirtyCount());
+
+        // Clearing the map starts a new generation instead of marking every cell
+        tileMap.clear();
+        assertEquals(0, tileMap.getDirtyCount());
+        assertEquals(generation + 1, tileMap.getGeneration());
+    }
+
+    // Tests that sprites sliced from the atlas match the individual images
+    @Test
+    public void spriteAtlasTest() {
+        Map<String, PImage> atlas = Sprites.loadAtlas();
+        assertNotNull(atlas);
+        assertFalse(atlas.isEmpty());
+
+        for (Map.Entry<String, PImage> entry : atlas.entrySet()) {
+            PImage image = Sprites.loadImage(entry.getKey());
+            assertEquals(image.width, entry.getValue().width);
+            assertEquals(image.height, entry.getValue().height);
+            assertArrayEquals(image.pixels, entry.getValue().pixels);
+        }
+
+        // Every sprite set keeps its usual length
+        Sprites sprites = app.getSprites();
+        assertEquals(5, sprites.brickwallSprites.length);
+        assertEquals(4, sprites.wizardSprites.length);
+        assertEquals(atlas.get("wizard0.png").width, sprites.wizardSprites[2].width);
+    }
+
+    // Tests that assets loaded on the worker pool match assets loaded directly
+    @Test
+    public void assetLoaderTest() {
+        AssetLoader loader = new AssetLoader(App.configPath);
+        Sprites sprites = loader.getSprites();
+        loader.getConfig();
+        assertTrue(loader.isDone());
+        assertEquals(1, loader.getProgress());
+
+        assertEquals(Engine.loadConfig(App.configPath).getJSONArray("levels").size(), loader.getConfig().getJSONArray("levels").size());
+        assertArrayEquals(Sprites.loadImage("fury.png").pixels, sprites.furyGremlinSprites[0].pixels);
+        assertEquals(2, sprites.hydroballPowerupSprites.length);
+    }
+
+    // Tests that updating the info bar every frame allocates nothing while the displayed values are unchanged
+    @Test
+    public void infoBarAllocationTest() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // The first update formats the text
+        infoBar.displayLives(player.getLives());
+        infoBar.displayLevel(app.getLevelNumber(), app.getLevelCount());
+        infoBar.displayPowerups(player.getPowerups());
+        infoBar.displayMana(player.getWeapons());
+        assertTrue(infoBar.isChanged());
+        infoBar.draw();
+        assertFalse(infoBar.isChanged());
+
+        // Reading the allocation counter may allocate itself, so that cost is measured first
+        long before = threads.getThreadAllocatedBytes(thread);
+        long overhead = threads.getThreadAllocatedBytes(thread) - before;
+
+        // Every call the window makes each frame is measured, including drawing the unchanged text layer
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int frame = 0; frame < 10000; frame++) {
+            infoBar.displayLives(player.getLives());
+            infoBar.displayLevel(app.getLevelNumber(), app.getLevelCount());
+            infoBar.displayPowerups(player.getPowerups());
+            infoBar.displayMana(player.getWeapons());
+            infoBar.draw();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - start;
+
+        assertFalse(infoBar.isChanged());
+        assertTrue(allocated <= overhead);
+
+        // A changed value is re-rendered on the next draw
+        infoBar.displayLives(player.getLives() - 1);
+        assertTrue(infoBar.isChanged());
+    }
+
+    // Tests the level parser and the compiled level format
+    @Test
+    public void levelDataTest() throws IOException {
+        LevelData data = LevelData.load("level1.txt", App.ROWS, App.COLS);
+        assertNotNull(data);
+        assertEquals('X', data.getCell(0));
+        assertEquals('W', data.getCell(data.getPlayerCell()));
+
+        // Occupied cells are in row-major order and skip empty cells
+        for (int i = 1; i < data.getOccupiedCount(); i++) {
+            assertTrue(data.getOccupiedCell(i - 1) < data.getOccupiedCell(i));
+            assertNotEquals(' ', data.getCell(data.getOccupiedCell(i)));
+        }
+
+        // A compiled level matches the text level it came from
+        LevelData compiled = LevelData.readCompiled(ByteBuffer.wrap(data.toCompiled()), App.ROWS, App.COLS);
+        assertNotNull(compiled);
+        assertEquals(data.getPlayerCell(), compiled.getPlayerCell());
+        assertEquals(data.getOccupiedCount(), compiled.getOccupiedCount());
+        for (int cell = 0; cell < App.ROWS * App.COLS; cell++) {
+            assertEquals(data.getCell(cell), compiled.getCell(cell));
+        }
+        assertNull(LevelData.readCompiled(ByteBuffer.wrap(data.toCompiled()), App.ROWS + 1, App.COLS));
+
+        // Damaged compiled levels are invalid instead of throwing when they are built
+        int gridStart = 4 * Integer.BYTES;
+        int playerStart = gridStart + App.ROWS * App.COLS;
+        byte[] badBorder = data.toCompiled();
+        badBorder[gridStart] = ' ';
+        assertNull(LevelData.readCompiled(ByteBuffer.wrap(badBorder), App.ROWS, App.COLS));
+        byte[] badPlayer = data.toCompiled();
+        ByteBuffer.wrap(badPlayer).putInt(playerStart, App.ROWS * App.COLS);
+        assertNull(LevelData.readCompiled(ByteBuffer.wrap(badPlayer), App.ROWS, App.COLS));
+        byte[] badOccupied = data.toCompiled();
+        ByteBuffer.wrap(badOccupied).putInt(playerStart + Integer.BYTES, -1);
+        assertNull(LevelData.readCompiled(ByteBuffer.wrap(badOccupied), App.ROWS, App.COLS));
+
+        // Files that are too short are invalid instead of throwing
+        byte[] text = Files.readAllBytes(Paths.get("level1.txt"));
+        assertNotNull(LevelData.parse(text, App.ROWS, App.COLS));
+        assertNull(LevelData.parse(Arrays.copyOf(text, text.length / 2), App.ROWS, App.COLS));
+        assertNull(LevelData.parse(new byte[0], App.ROWS, App.COLS));
+        assertNull(LevelData.load("missing.txt", App.ROWS, App.COLS));
+        assertEquals("levels/level1.glv", LevelCompiler.compiledPath("levels/level1.txt"));
+    }
+
+    // Tests that a reset restores the level's initial state using the same objects
+    @Test
+    public void snapshotResetTest() {
+        TileGrid tileMap = level.getMap();
+        Powerup powerup = (Powerup)tileMap.getTile(7, 9);
+        PowerupType powerupType = powerup.getPowerupType();
+        List<Powerup> powerups = new ArrayList<Powerup>(player.getPowerups());
+        int playerX = player.getX();
+        int playerY = player.getY();
+
+        List<Enemy> enemies = level.getEnemies();
+        Enemy enemy = enemies.get(0);
+        int enemyX = enemy.getX();
+        int enemyY = enemy.getY();
+        Direction enemyVector = enemy.getVector();
+
+        // Breaks a brick, moves an enemy, fires a projectile and uses a powerup
+        int brickRow = 1;
+        int brickCol = 4;
+        Tile brick = tileMap.getTile(brickRow, brickCol);
+        assertEquals(TileType.BRICKWALL, brick.getTileType());
+        tileMap.destroyTile(brickRow, brickCol);
+        for (int tick = 0; tick <= App.DESTORYFRAMES * 4; tick++) {
+            level.progressBrokenTiles();
+        }
+        assertTrue(tileMap.isEmpty(brickRow, brickCol));
+        enemy.teleport(player, tileMap);
+        player.useWeapon(' ', level.getProjectiles());
+        powerup.setAvailabilityTimer(1);
+        powerup.reduceTimers();
+        assertTrue(powerup.contact(level));
+        player.setCoords(0, 0);
+
+        assertTrue(level.reset());
+
+        // Everything is back where it started, without creating new objects
+        assertSame(brick, tileMap.getTile(brickRow, brickCol));
+        assertFalse(brick.isDestroyed());
+        assertEquals(0, tileMap.getDestroyingCount());
+        assertSame(enemies, level.getEnemies());
+        assertEquals(enemyX, enemy.getX());
+        assertEquals(enemyY, enemy.getY());
+        assertEquals(enemyVector, enemy.getVector());
+        assertEquals(0, level.getProjectiles().size());
+        assertEquals(playerX, player.getX());
+        assertEquals(playerY, player.getY());
+
+        // Powerups keep their type and are unavailable again
+        assertSame(powerup, tileMap.getTile(7, 9));
+        assertEquals(powerupType, powerup.getPowerupType());
+        assertFalse(powerup.getAvailability());
+        assertFalse(powerup.isActive());
+        assertEquals(powerups, player.getPowerups());
+
+        // A later reset only puts back the broken tiles, without reallocating any part of the map
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        tileMap.destroyTile(brickRow, brickCol);
+        for (int tick = 0; tick <= App.DESTORYFRAMES * 4; tick++) {
+            level.progressBrokenTiles();
+        }
+        int generation = tileMap.getGeneration();
+        long start = threads.getThreadAllocatedBytes(thread);
+        assertTrue(level.reset());
+        long allocated = threads.getThreadAllocatedBytes(thread) - start;
+        assertSame(brick, tileMap.getTile(brickRow, brickCol));
+        assertEquals(0, tileMap.getLostCount());
+        assertTrue(allocated < 1024);
+
+        // The restored brick closes its cell again, so distances to the player are searched again
+        assertTrue(tileMap.getGeneration() > generation);
+    }
+
+    // Tests that the next level is read in the background and used at the exit
+    @Test
+    public void levelPreloadTest() {
+        Engine engine = app.getEngine();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!engine.isNextLevelReady() && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertTrue(engine.isNextLevelReady());
+
+        assertTrue(engine.progressLevel());
+        assertEquals(2, engine.getLevelNumber());
+        assertTrue(engine.isLastTransitionPreloaded());
+        assertTrue(engine.getLastTransitionTime() > 0);
+        assertTrue(engine.getLevel().getValidity());
+
+        // There is no level after the last one, so nothing is preloaded
+        assertFalse(engine.isNextLevelReady());
+
+        // Engines without a window, such as the batch runner's, never read ahead
+        Engine headless = new Engine(Engine.loadConfig(App.configPath), Sprites.headless(), new Random(1));
+        assertFalse(headless.isNextLevelReady());
+        headless.endGame(false);
+        assertFalse(headless.isNextLevelReady());
+    }
+
+    // Tests that a recorded game is reproduced exactly by its replay
+    @Test
+    public void recordReplayTest() throws IOException {
+        JSONObject config = Engine.loadConfig(App.configPath);
+        long seed = 12345;
+        Engine engine = new Engine(config, Sprites.headless(), new Random(seed));
+        Random inputs = new Random(1);
+        Input input = new Input();
+
+        // Plays a game with random inputs, restarting it whenever it ends
+        ByteArrayOutputStream recording = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(recording, seed);
+        for (int tick = 0; tick < 20000; tick++) {
+            if (!engine.isGameActive()) {
+                recorder.recordReset();
+                engine.reset();
+            }
+            input.setRightPressed(inputs.nextInt(4) == 0);
+            input.setLeftPressed(inputs.nextInt(4) == 0);
+            input.setUpPressed(inputs.nextInt(4) == 0);
+            input.setDownPressed(inputs.nextInt(4) == 0);
+            input.setCharPressed(inputs.nextBoolean() ? App.weaponChars[inputs.nextInt(App.weaponChars.length)] : null);
+            recorder.record(input);
+            engine.step(input);
+        }
+        recorder.close();
+
+        // A header and a single byte per tick
+        assertTrue(recording.size() >= 12 + 20000);
+
+        InputReplay replay = new InputReplay(recording.toByteArray());
+        assertEquals(seed, replay.getSeed());
+        Engine replayed = replay.createEngine(config, Sprites.headless());
+        Input replayInput = new Input();
+        while (replay.step(replayed, replayInput)) {}
+        assertTrue(replay.isFinished());
+        assertEquals(20000, replay.getTick());
+
+        assertEquals(engine.getTickCount(), replayed.getTickCount());
+        assertEquals(engine.getLevelNumber(), replayed.getLevelNumber());
+        assertEquals(engine.getPlayer().getX(), replayed.getPlayer().getX());
+        assertEquals(engine.getPlayer().getY(), replayed.getPlayer().getY());
+        assertEquals(engine.getPlayer().getLives(), replayed.getPlayer().getLives());
+        assertEquals(engine.getLevel().getEnemies().size(), replayed.getLevel().getEnemies().size());
+        for (int i = 0; i < engine.getLevel().getEnemies().size(); i++) {
+            assertEquals(engine.getLevel().getEnemies().get(i).getX(), replayed.getLevel().getEnemies().get(i).getX());
+            assertEquals(engine.getLevel().getEnemies().get(i).getY(), replayed.getLevel().getEnemies().get(i).getY());
+        }
+
+        // Packing an input keeps every flag and the weapon
+        input.setRightPressed(true);
+        input.setLeftPressed(false);
+        input.setUpPressed(true);
+        input.setDownPressed(false);
+        input.setCharPressed('s');
+        InputRecorder.decode(InputRecorder.encode(input), replayInput);
+        assertTrue(replayInput.isRightPressed());
+        assertFalse(replayInput.isLeftPressed());
+        assertTrue(replayInput.isUpPressed());
+        assertFalse(replayInput.isDownPressed());
+        assertEquals(Character.valueOf('s'), replayInput.getCharPressed());
+    }
+
+    // Tests that replaying a recording gives the same checksums every time and that differences are found
+    @Test
+    public void replayVerifierTest() throws IOException {
+        JSONObject config = Engine.loadConfig(App.configPath);
+        ByteArrayOutputStream recording = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(recording, 7);
+        Input input = new Input();
+        for (int tick = 0; tick < 1000; tick++) {
+            input.setRightPressed(tick % 200 < 100);
+            input.setDownPressed(tick % 200 >= 100);
+            recorder.record(input);
+        }
+        recorder.close();
+
+        List<long[]> expected = ReplayVerifier.trace(new InputReplay(recording.toByteArray()), config, 100);
+        List<long[]> actual = ReplayVerifier.trace(new InputReplay(recording.toByteArray()), config, 100);
+        assertEquals(10, expected.size());
+        assertEquals(1000, expected.get(9)[0]);
+        assertNull(ReplayVerifier.compare(expected, actual));
+
+        // A different checksum is reported at its tick
+        actual.get(4)[1]++;
+        assertEquals("diverged at tick 500 (last matching tick 400)", ReplayVerifier.compare(expected, actual));
+        assertNotNull(ReplayVerifier.compare(expected, actual.subList(0, 4)));
+    }
+
+    // Tests that headless games run in batches and that the bot can win them
+    @Test
+    public void batchRunnerTest() throws Exception {
+        JSONObject config = BatchRunner.singleLevelConfig(Engine.loadConfig(App.configPath), "level1.txt");
+        assertEquals(1, config.getJSONArray("levels").size());
+        assertEquals(0.3333, config.getJSONArray("levels").getJSONObject(0).getDouble("wizard_cooldown"), 1e-9);
+
+        // The bot's first step from the start leads towards the exit
+        BotController bot = new BotController();
+        assertNotNull(bot.nextStep(level.getMap(), GameObject.pixelToGrid(player.getY()), GameObject.pixelToGrid(player.getX())));
+
+        // Every game is independent, so the outcome does not depend on the number of threads
+        List<SimulationResult> serial = BatchRunner.run(config, 100, 8, 1, BotController::new, 2000);
+        List<SimulationResult> parallel = BatchRunner.run(config, 100, 8, 4, BotController::new, 2000);
+        assertEquals(8, parallel.size());
+        for (int game = 0; game < serial.size(); game++) {
+            assertEquals(100 + game, parallel.get(game).getSeed());
+            assertEquals(serial.get(game).getTicks(), parallel.get(game).getTicks());
+            assertEquals(serial.get(game).isWon(), parallel.get(game).isWon());
+            assertEquals(serial.get(game).getProjectileDeaths(), parallel.get(game).getProjectileDeaths());
+        }
+
+        // The bot avoids enemies and their projectiles, and shoots the enemies in line with it, well enough to win most games
+        int wins = 0;
+        for (long seed = 1; seed <= 10; seed++) {
+            if (BatchRunner.simulate(config, seed, new BotController(), BatchRunner.DEFAULTMAXTICKS).isWon()) {
+                wins++;
+            }
+        }
+        assertTrue(wins >= 5);
+    }
+
+    // Tests that the flow field finds the distances to its target and updates them as walls are removed
+    @Test
+    public void flowFieldTest() {
+        TileGrid tileMap = new TileGrid(5, 5);
+        for (int i = 0; i < 5; i++) {
+            tileMap.setTile(2, i, new Tile(GameObject.gridToPixel(i), GameObject.gridToPixel(2), testSprites, i == 2 ? TileType.BRICKWALL : TileType.STONEWALL));
+        }
+
+        // The wall splits the map, so the bottom half cannot reach the target
+        FlowField flowField = new FlowField(tileMap, 0, App.PURSUITRANGE);
+        assertTrue(flowField.update(0, 2));
+        assertEquals(0, flowField.getDistance(0, 2));
+        assertEquals(3, flowField.getDistance(1, 4));
+        assertEquals(FlowField.UNREACHABLE, flowField.getDistance(4, 2));
+        assertNull(flowField.nextStep(4, 2, Direction.NORTH));
+        assertEquals(Direction.WEST, flowField.nextStep(1, 4, Direction.WEST));
+        assertEquals(Direction.NORTH, flowField.nextStep(1, 4, Direction.NORTH));
+        assertEquals(Direction.NORTH, flowField.nextStep(1, 2, null));
+
+        // Breaking the brick opens a path without searching again
+        tileMap.destroyTile(2, 2);
+        while (tileMap.getTile(2, 2) != null) {
+            tileMap.progressDestruction();
+        }
+        assertFalse(flowField.update(0, 2));
+        assertEquals(2, flowField.getDistance(2, 2));
+        assertEquals(4, flowField.getDistance(4, 2));
+        assertEquals(Direction.NORTH, flowField.nextStep(4, 2, Direction.EAST));
+
+        // Moving the target searches again
+        assertTrue(flowField.update(4, 4));
+        assertEquals(0, flowField.getDistance(4, 4));
+    }
+
+    // Tests that enemies teleport to a random empty cell away from the player
+    @Test
+    public void teleportTest() {
+        Random rand = app.getRandom();
+        TileGrid tileMap = level.getMap();
+
+        // The empty cell index matches the map
+        int emptyCount = 0;
+        for (int row = 0; row < tileMap.getRows(); row++) {
+            for (int col = 0; col < tileMap.getCols(); col++) {
+                emptyCount += tileMap.isEmpty(row, col) ? 1 : 0;
+            }
+        }
+        assertEquals(emptyCount, tileMap.getEmptyCount());
+        for (int i = 0; i < tileMap.getEmptyCount(); i++) {
+            int cell = tileMap.getEmptyCell(i);
+            assertTrue(tileMap.isEmpty(cell / tileMap.getCols(), cell % tileMap.getCols()));
+            assertEquals(i, tileMap.getEmptyRank(cell / tileMap.getCols(), cell % tileMap.getCols()));
+        }
+
+        // Enemies always land on an empty tile outside the teleport range
+        Enemy enemy = new GreenGremlin(App.SPRITESIZE, App.SPRITESIZE, testSprites, null, rand, tileMap);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(enemy.teleport(player, tileMap));
+            assertTrue(tileMap.isEmpty(GameObject.pixelToGrid(enemy.getY()), GameObject.pixelToGrid(enemy.getX())));
+            assertTrue(Math.abs(enemy.getX() - player.getX()) + Math.abs(enemy.getY() - player.getY()) >= App.TELEPORTRANGE * App.SPRITESIZE);
+        }
+
+        // On a map too small for the teleport range, the enemy moves to the furthest empty tile instead of freezing the game
+        TileGrid smallMap = new TileGrid(3, 3);
+        smallMap.setTile(1, 1, new Tile(App.SPRITESIZE, App.SPRITESIZE, testSprites, TileType.STONEWALL));
+        player.setCoords(0, 0);
+        Enemy trapped = new GreenGremlin(0, App.SPRITESIZE, testSprites, null, rand, smallMap);
+        assertEquals(8, smallMap.getEmptyCount());
+        assertFalse(trapped.teleport(player, smallMap));
+        assertEquals(2 * App.SPRITESIZE, trapped.getX());
+        assertEquals(2 * App.SPRITESIZE, trapped.getY());
+
+        // When nearly every empty tile is close to the player, only the close tiles are skipped to reach a far one
+        TileGrid openMap = new TileGrid(40, 40);
+        for (int row = 0; row < 40; row++) {
+            for (int col = 0; col < 40; col++) {
+                if (Math.abs(row - 20) + Math.abs(col - 20) >= App.TELEPORTRANGE && !(row == 0 && col == 0)) {
+                    openMap.setTile(row, col, new Tile(GameObject.gridToPixel(col), GameObject.gridToPixel(row), testSprites, TileType.STONEWALL));
+                }
+            }
+        }
+        player.setCoords(GameObject.gridToPixel(20), GameObject.gridToPixel(20));
+        Enemy cornered = new GreenGremlin(GameObject.gridToPixel(20), GameObject.gridToPixel(21), testSprites, null, rand, openMap);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cornered.teleport(player, openMap));
+            assertEquals(0, cornered.getX());
+            assertEquals(0, cornered.getY());
+        }
+    }
+
+    // Tests that levels larger than the window are read and played
+    @Test
+    public void largeMapTest() throws IOException {
+        // Level files of any size are read with their own dimensions
+        byte[] arena = ArenaGenerator.generate(100, 70, 50, new Random(1));
+        LevelData data = LevelData.parse(arena, LevelData.ANYSIZE, LevelData.ANYSIZE);
+        assertNotNull(data);
+        assertEquals(100, data.getRows());
+        assertEquals(70, data.getCols());
+        assertNotNull(LevelData.readCompiled(ByteBuffer.wrap(data.toCompiled()), LevelData.ANYSIZE, LevelData.ANYSIZE));
+        assertEquals(App.ROWS, LevelData.load("level1.txt").getRows());
+        assertEquals(App.COLS, LevelData.load("level1.txt").getCols());
+
+        // Chunks are only created for tiles, and empty cells are found chunk by chunk
+        TileGrid tileMap = new TileGrid(1000, 1000);
+        assertEquals(1000000, tileMap.getEmptyCount());
+        assertEquals(1000, tileMap.getEmptyCell(TileGrid.CHUNKSIZE));
+        tileMap.setTile(0, 0, new Tile(0, 0, testSprites, TileType.BRICKWALL));
+        tileMap.setTile(999, 999, new Tile(0, 0, testSprites, TileType.STONEWALL));
+        assertEquals(999998, tileMap.getEmptyCount());
+        assertEquals(1, tileMap.getEmptyCell(0));
+        assertEquals(999998, tileMap.getEmptyCell(999997));
+        assertEquals(0, tileMap.getStrength(999, 999));
+        assertTrue(tileMap.isEmpty(500, 500));
+
+        // A whole game runs on the larger level
+        Path levelPath = Files.createTempFile("arena", ".txt");
+        Files.write(levelPath, arena);
+        JSONObject config = JSONObject.parse("{\"levels\": [{\"layout\": \"" + levelPath.toString().replace('\\', '/') + "\", \"wizard_cooldown\": 1, \"enemy_cooldown\": 1}], \"lives\": 3}");
+        Engine engine = new Engine(config, Sprites.headless(), new Random(1));
+        assertEquals(100, engine.getLevel().getMap().getRows());
+        for (int tick = 0; tick < 1000; tick++) {
+            engine.step(new Input());
+        }
+        Files.delete(levelPath);
+    }
+
+    // Tests that the camera follows the player without showing anything outside the map
+    @Test
+    public void cameraTest() {
+        Camera camera = new Camera(App.WIDTH, InfoBar.yPos);
+
+        // A map the size of the window never scrolls
+        player.setCoords(30 * App.SPRITESIZE, 30 * App.SPRITESIZE);
+        camera.follow(player, level.getMap());
+        assertEquals(0, camera.getX());
+        assertEquals(0, camera.getY());
+        assertEquals(App.ROWS - 1, camera.getLastRow());
+        assertEquals(App.COLS - 1, camera.getLastCol());
+
+        // On a larger map the player is kept in the centre
+        TileGrid largeMap = new TileGrid(200, 300);
+        player.setCoords(150 * App.SPRITESIZE, 100 * App.SPRITESIZE);
+        camera.follow(player, largeMap);
+        assertEquals(150 * App.SPRITESIZE + App.SPRITESIZE / 2 - App.WIDTH / 2, camera.getX());
+        assertEquals(100 * App.SPRITESIZE + App.SPRITESIZE / 2 - InfoBar.yPos / 2, camera.getY());
+        assertTrue(camera.isVisible(player.getX(), player.getY()));
+        assertFalse(camera.isVisible(0, 0));
+        assertTrue(camera.isVisible(camera.getX() - App.SPRITESIZE + 1, camera.getY()));
+        assertFalse(camera.isVisible(camera.getX() + App.WIDTH, camera.getY()));
+
+        // The view stops at the edges of the map
+        player.setCoords(299 * App.SPRITESIZE, 199 * App.SPRITESIZE);
+        camera.follow(player, largeMap);
+        assertEquals(300 * App.SPRITESIZE - App.WIDTH, camera.getX());
+        assertEquals(200 * App.SPRITESIZE - InfoBar.yPos, camera.getY());
+        assertEquals(199, camera.getLastRow());
+        assertEquals(299, camera.getLastCol());
+    }
+
+    // Performs tests on the fixed timestep and the drawing of moving objects between ticks
+    @Test
+    public void fixedTimestepTest() {
+        long second = 1000000000L;
+
+        // The game runs the same number of ticks each second whatever the frame rate
+        for (int frameRate : new int[] {30, 60, 144}) {
+            FixedTimestep timestep = new FixedTimestep(App.FPS, App.MAXTICKSPERFRAME, 0);
+            int ticks = 0;
+            for (int frame = 1; frame <= frameRate; frame++) {
+                ticks += timestep.advance(frame * second / frameRate);
+            }
+            assertEquals(App.FPS, ticks, 1);
+        }
+
+        // After a long pause the game only catches up a limited number of ticks
+        FixedTimestep timestep = new FixedTimestep(App.FPS, App.MAXTICKSPERFRAME, 0);
+        assertEquals(App.MAXTICKSPERFRAME, timestep.advance(2 * second));
+        assertEquals(0, timestep.advance(2 * second + second / App.FPS / 2));
+        assertEquals(0.5f, timestep.getAlpha(), 0.01f);
+
+        // Moving objects are drawn between their positions before and after the last tick
+        player.setCoords(40, 40);
+        player.startMove(Direction.EAST);
+        player.tick();
+        assertEquals(40, player.getDrawX(0));
+        assertEquals(40 + App.PLAYERSPEED / 2, player.getDrawX(0.5f));
+        assertEquals(40 + App.PLAYERSPEED, player.getX());
+
+        // Moving the object directly skips the interpolation
+        player.setCoords(100, 100);
+        assertEquals(100, player.getDrawX(0.5f));
+    }
+
+    // Performs tests on the histograms and the frame profiler
+    @Test
+    public void frameProfilerTest() {
+        // Percentiles are within the histogram's precision
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000, histogram.getPercentile(50), 50000 * 0.03);
+        assertEquals(99000, histogram.getPercentile(99), 99000 * 0.03);
+        assertEquals(1, histogram.getPercentile(0));
+        histogram.reset();
+        assertEquals(0, histogram.getPercentile(50));
+
+        // A disabled profiler records nothing
+        FrameProfiler disabled = new FrameProfiler(false);
+        assertEquals(0, disabled.lap(FramePhase.TICK, disabled.start()));
+        disabled.countEntities(5, 5);
+        assertEquals(0, disabled.getTimings(FramePhase.TICK).getCount());
+        assertEquals(0, disabled.getEnemyCounts().getCount());
+
+        // An enabled profiler records every phase of a tick and the entities in it
+        FrameProfiler profiler = new FrameProfiler(true);
+        long time = profiler.start();
+        time = profiler.lap(FramePhase.PROJECTILES, time);
+        profiler.lap(FramePhase.TICK, time);
+        profiler.countEntities(3, 7);
+        assertEquals(1, profiler.getTimings(FramePhase.PROJECTILES).getCount());
+        assertEquals(1, profiler.getTimings(FramePhase.TICK).getCount());
+        assertEquals(3, profiler.getEnemyCounts().getMax());
+        assertEquals(7, profiler.getProjectileCounts().getMax());
+        assertTrue(profiler.report().contains("progressProjectiles"));
+    }
+
+    // Tests that game events are recorded by the flight recorder
+    @Test
+    public void flightRecorderTest() throws IOException {
+        Path file = Files.createTempFile("gremlins", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TickEvent.class);
+            recording.enable(PlayerDeathEvent.class);
+            recording.enable(TeleportEvent.class);
+            recording.start();
+
+            // A tick, a death and a teleport each record an event
+            app.getEngine().step(new Input());
+            assertTrue(level.reset());
+            assertTrue(level.getEnemies().get(0).teleport(player, level.getMap()));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        RecordedEvent tick = events.stream().filter(event -> event.getEventType().getName().equals("gremlins.Tick")).findFirst().get();
+        assertEquals(1, tick.getInt("levelNumber"));
+        assertEquals(level.getEnemies().size(), tick.getInt("enemies"));
+
+        RecordedEvent death = events.stream().filter(event -> event.getEventType().getName().equals("gremlins.PlayerDeath")).findFirst().get();
+        assertEquals(player.getLives(), death.getInt("livesLeft"));
+        assertFalse(death.getBoolean("gameOver"));
+
+        RecordedEvent teleport = events.stream().filter(event -> event.getEventType().getName().equals("gremlins.Teleport")).findFirst().get();
+        assertTrue(teleport.getInt("attempts") >= 1);
+        assertTrue(teleport.getBoolean("far"));
+    }
+
+    // Tests that the game is published and controlled through JMX
+    @Test
+    public void gameMonitorTest() throws Exception {
+        GameMonitor monitor = new GameMonitor(App.FPS);
+        assertTrue(monitor.register());
+        ObjectName name = new ObjectName(GameMonitor.OBJECTNAME);
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+
+        // The counters are published every frame
+        Engine engine = app.getEngine();
+        monitor.update(engine, 0);
+        assertEquals(level.getEnemies().size(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "EnemyCount"));
+        assertEquals(1, monitor.getLevelNumber());
+        assertEquals(player.getLives(), monitor.getPlayerLives());
+
+        // The time until the game became playable is only published once it is reached
+        assertEquals(-1.0, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FirstInteractiveMillis"));
+        monitor.recordFirstInteractiveFrame(250000000L);
+        assertEquals(250.0, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FirstInteractiveMillis"));
+
+        // A paused game only advances by the steps asked for
+        assertEquals(3, monitor.takeTicks(3));
+        monitor.pause();
+        assertEquals(0, monitor.takeTicks(3));
+        monitor.step();
+        assertEquals(1, monitor.takeTicks(3));
+        assertEquals(0, monitor.takeTicks(3));
+        monitor.resume();
+        assertEquals(3, monitor.takeTicks(3));
+
+        // A new target frame rate is only taken once
+        monitor.setTargetFramesPerSecond(144);
+        assertEquals(144, monitor.takeTargetFramesPerSecond());
+        assertEquals(0, monitor.takeTargetFramesPerSecond());
+        assertThrows(IllegalArgumentException.class, () -> monitor.setTargetFramesPerSecond(0));
+
+        assertTrue(GameMonitor.describe(engine).startsWith("Level 1 of"));
+        monitor.unregister();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    // Tests that game events are written to the rotating event log
+    @Test
+    public void eventLogTest() throws IOException {
+        Path dir = Files.createTempDirectory("gremlins");
+        EventLog eventLog = new EventLog(dir, 8, EventLog.DEFAULTMAXFILEBYTES, 2);
+        app.getEngine().setEventLog(eventLog);
+
+        // Game events are written in order with their details
+        app.getEngine().recordDeath(CollisionType.ENEMY);
+        app.getEngine().endGame(false);
+
+        // Events logged faster than they are written are dropped instead of waiting
+        int logged = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (eventLog.log(GameEventType.KILL, i, 1, 0, 0, i, null)) {
+                logged++;
+            }
+        }
+        eventLog.close();
+        assertEquals(10000, logged + eventLog.getDroppedCount());
+
+        List<String> lines = Files.readAllLines(EventLog.logFile(dir, 0));
+        assertEquals(EventLog.HEADER, lines.get(0));
+        String[] death = lines.get(1).split("\t");
+        assertEquals("DEATH", death[2]);
+        assertEquals(String.valueOf(player.getLives() - 1), death[6]);
+        assertEquals("ENEMY", death[7]);
+        assertEquals("END", lines.get(2).split("\t")[2]);
+
+        // Every event is either written or counted in a dropped line
+        long written = lines.stream().filter(line -> line.contains("\tKILL\t")).count();
+        long dropped = lines.stream().filter(line -> line.startsWith("# dropped")).mapToLong(line -> Long.parseLong(line.split("\t")[1])).sum();
+        assertEquals(10000, written + dropped);
+
+        for (int age = 0; age < 2; age++) {
+            Files.deleteIfExists(EventLog.logFile(dir, age));
+        }
+        Files.delete(dir);
+    }
 }